@@ -0,0 +1,15 @@
+package com.sultan.springshop.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are Caffeine (W-TinyLFU eviction) and sized through
+ * spring.cache.caffeine.spec; hit, miss and eviction counts are published as
+ * the cache.gets / cache.evictions actuator metrics.
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String PRODUCT_DTOS = "productDtos";
+}
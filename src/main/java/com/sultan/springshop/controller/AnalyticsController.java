@@ -0,0 +1,75 @@
+package com.sultan.springshop.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sultan.springshop.response.ApiResponse;
+import com.sultan.springshop.service.analytics.ISalesAnalyticsService;
+
+import lombok.RequiredArgsConstructor;
+
+// Sales reports from the rollup tables; dates are inclusive and default to the last 30 days
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("${api.prefix}/admin/analytics")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class AnalyticsController {
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final ISalesAnalyticsService salesAnalyticsService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<ApiResponse> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return report(from, to, salesAnalyticsService::getDailySales);
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<ApiResponse> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        return report(from, to, (start, end) -> salesAnalyticsService.getTopProducts(start, end, limit));
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<ApiResponse> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return report(from, to, salesAnalyticsService::getCategorySales);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<ApiResponse> rebuildRollups() {
+        try {
+            int rows = salesAnalyticsService.rebuildRollups();
+            return ResponseEntity.ok(new ApiResponse("Rebuilt sales rollups", rows, true));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    private static ResponseEntity<ApiResponse> report(LocalDate from, LocalDate to,
+            BiFunction<LocalDate, LocalDate, List<?>> report) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_RANGE_DAYS - 1) : from;
+        try {
+            return ResponseEntity.ok(new ApiResponse("Success", report.apply(start, end), true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+}
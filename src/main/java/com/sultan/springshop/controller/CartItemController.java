@@ -1,18 +1,23 @@
 package com.sultan.springshop.controller;
 
+import java.util.List;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sultan.springshop.dto.CartDto;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
 import com.sultan.springshop.model.Cart;
 import com.sultan.springshop.model.User;
+import com.sultan.springshop.request.CartOperationRequest;
 import com.sultan.springshop.response.ApiResponse;
 import com.sultan.springshop.service.cart.ICartItemService;
 import com.sultan.springshop.service.cart.ICartService;
@@ -46,6 +51,23 @@ public class CartItemController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse> applyCartOperations(@RequestBody List<CartOperationRequest> operations) {
+        try {
+            User user = userService.getAuthenticatedUser();
+            Cart cart = cartService.initializeNewCart(user);
+            Cart updated = cartItemService.applyOperations(cart.getId(), operations);
+            CartDto cartDto = cartService.convertCarttoCartDto(updated);
+            return ResponseEntity.ok(new ApiResponse("Update cart success", cartDto, true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
     @DeleteMapping("/cart/{cartId}/item/{productId}/remove")
     public ResponseEntity<ApiResponse> removeItemFromCart(@PathVariable Long cartId, @PathVariable Long productId) {
         try {
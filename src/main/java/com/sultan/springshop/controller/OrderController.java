@@ -1,20 +1,40 @@
 package com.sultan.springshop.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderEventDto;
+import com.sultan.springshop.dto.OrderPageDto;
+import com.sultan.springshop.dto.OrderStateDto;
+import com.sultan.springshop.dto.OrderTicketDto;
+import com.sultan.springshop.exceptions.IdempotencyKeyInProgressException;
+import com.sultan.springshop.exceptions.IdempotencyKeyReuseException;
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.exceptions.InsufficientStockException;
+import com.sultan.springshop.exceptions.InvalidOrderTransitionException;
+import com.sultan.springshop.exceptions.OrderQueueFullException;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
 import com.sultan.springshop.model.Order;
 import com.sultan.springshop.response.ApiResponse;
+import com.sultan.springshop.service.idempotency.IdempotencyStore;
+import com.sultan.springshop.service.order.AsyncOrderPipeline;
 import com.sultan.springshop.service.order.IOrderService;
 
 import lombok.RequiredArgsConstructor;
@@ -23,20 +43,85 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @RequestMapping("${api.prefix}/orders")
 public class OrderController {
+    private static final long TICKET_EVENTS_TIMEOUT_MILLIS = 60_000;
+
     private final IOrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final AsyncOrderPipeline asyncOrderPipeline;
 
+    // with async=true the order is queued and a ticket returned with 202; poll it or subscribe to its events
     @PostMapping("/order")
-    public ResponseEntity<ApiResponse> createOrder(@RequestParam Long userId) {
+    public ResponseEntity<ApiResponse> createOrder(@RequestParam Long userId,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        try {
+            return idempotencyStore.execute("order", idempotencyKey, userId + (async ? "/async" : ""),
+                    () -> async ? queueOrder(userId) : placeOrder(userId));
+        } catch (IdempotencyKeyReuseException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(new ApiResponse(e.getMessage(), null, false));
+        } catch (IdempotencyKeyInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    private ResponseEntity<ApiResponse> placeOrder(Long userId) {
         try {
             Order order = orderService.placeOrder(userId);
             OrderDto orderDto = orderService.converToDto(order);
             return ResponseEntity.ok(new ApiResponse("Item Order success", orderDto, true));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse(e.getMessage(), e.getShortages(), false));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(e.getMessage(), null, false));
         }
     }
 
+    private ResponseEntity<ApiResponse> queueOrder(Long userId) {
+        try {
+            OrderTicketDto ticket = asyncOrderPipeline.submit(userId);
+            return ResponseEntity.accepted().body(new ApiResponse("Order queued", ticket, true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (OrderQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<ApiResponse> getOrderTicket(@PathVariable String ticketId) {
+        try {
+            OrderTicketDto ticket = asyncOrderPipeline.getTicket(ticketId);
+            return ResponseEntity.ok(new ApiResponse("Success", ticket, true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    @GetMapping(value = "/tickets/{ticketId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToOrderTicket(@PathVariable String ticketId) {
+        try {
+            CompletableFuture<OrderTicketDto> done = asyncOrderPipeline.whenDone(ticketId);
+            SseEmitter emitter = new SseEmitter(TICKET_EVENTS_TIMEOUT_MILLIS);
+            done.whenCompleteAsync((ticket, failure) -> {
+                try {
+                    emitter.send(SseEmitter.event().name("order").data(ticket));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            });
+            return ResponseEntity.ok(emitter);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{orderId}/order")
     public ResponseEntity<ApiResponse> getOrderById(@PathVariable Long orderId) {
         try {
@@ -47,13 +132,50 @@ public class OrderController {
         }
     }
 
-    @GetMapping("/{userId}/orders")
-    public ResponseEntity<ApiResponse> getUserOrders(@PathVariable Long userId) {
+    // served from the in-memory projection, not the event log
+    @GetMapping("/{orderId}/status")
+    public ResponseEntity<ApiResponse> getOrderStatus(@PathVariable Long orderId) {
+        try {
+            OrderStateDto state = orderService.getOrderState(orderId);
+            return ResponseEntity.ok(new ApiResponse("Success", state, true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    @GetMapping("/{orderId}/history")
+    public ResponseEntity<ApiResponse> getOrderHistory(@PathVariable Long orderId) {
         try {
-            List<OrderDto> orders = orderService.getUserOrders(userId);
-            return ResponseEntity.ok(new ApiResponse("Success", orders, true));
+            List<OrderEventDto> events = orderService.getOrderHistory(orderId);
+            return ResponseEntity.ok(new ApiResponse("Success", events, true));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
         }
     }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/{orderId}/status")
+    public ResponseEntity<ApiResponse> updateOrderStatus(@PathVariable Long orderId,
+            @RequestParam OrderEventType event, @RequestParam(required = false) String detail) {
+        try {
+            OrderStateDto state = orderService.updateOrderStatus(orderId, event, detail);
+            return ResponseEntity.ok(new ApiResponse("Order status updated", state, true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (InvalidOrderTransitionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    // always one page of summaries; a full order is fetched with /{orderId}/order
+    @GetMapping("/{userId}/orders")
+    public ResponseEntity<ApiResponse> getUserOrders(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+        try {
+            OrderPageDto page = orderService.getUserOrderHistory(userId, cursor, size);
+            return ResponseEntity.ok(new ApiResponse("Success", page, true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
 }
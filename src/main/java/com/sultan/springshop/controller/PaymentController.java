@@ -4,6 +4,9 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
+import com.sultan.springshop.exceptions.IdempotencyKeyInProgressException;
+import com.sultan.springshop.exceptions.IdempotencyKeyReuseException;
+import com.sultan.springshop.service.idempotency.IdempotencyStore;
 import com.sultan.springshop.service.order.OrderService;
 import com.sultan.springshop.service.PaymentService;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,14 +26,29 @@ public class PaymentController {
 
     private final OrderService orderService;
     private final PaymentService paymentService;
+    private final IdempotencyStore idempotencyStore;
 
-    public PaymentController(OrderService orderService, PaymentService paymentService) {
+    public PaymentController(OrderService orderService, PaymentService paymentService,
+            IdempotencyStore idempotencyStore) {
         this.orderService = orderService;
         this.paymentService = paymentService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PostMapping("/create-checkout-session/{orderId}")
-    public ResponseEntity<Map<String, String>> createCheckoutSession(@PathVariable Long orderId) {
+    public ResponseEntity<Map<String, String>> createCheckoutSession(@PathVariable Long orderId,
+            @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        try {
+            return idempotencyStore.execute("checkout-session", idempotencyKey, String.valueOf(orderId),
+                    () -> checkoutSession(orderId));
+        } catch (IdempotencyKeyReuseException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (IdempotencyKeyInProgressException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.CONFLICT);
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> checkoutSession(Long orderId) {
         try {
             String sessionId = paymentService.createCheckoutSession(orderId);
             Map<String, String> response = new HashMap<>();
@@ -1,8 +1,19 @@
 package com.sultan.springshop.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,17 +22,30 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.sultan.springshop.dto.FacetCountsDto;
 import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.ProductImportResultDto;
+import com.sultan.springshop.dto.ProductPageDto;
+import com.sultan.springshop.enums.ExportFormat;
+import com.sultan.springshop.enums.ProductSort;
 import com.sultan.springshop.exceptions.AlreadyExistsException;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
 import com.sultan.springshop.model.Product;
 import com.sultan.springshop.request.AddProductRequest;
 import com.sultan.springshop.request.UpdateProductRequest;
 import com.sultan.springshop.response.ApiResponse;
+import com.sultan.springshop.service.product.CatalogExporter;
+import com.sultan.springshop.service.product.IProductImportService;
 import com.sultan.springshop.service.product.IProductService;
 
 import lombok.RequiredArgsConstructor;
@@ -31,26 +55,115 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("${api.prefix}/products")
 public class ProductController {
 
+    private static final int EXPORT_GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final IProductService productService;
+    private final IProductImportService productImportService;
+    private final CatalogExporter catalogExporter;
+    private final ObjectMapper objectMapper;
 
+    // always one page; the whole catalog is only available through /all/stream
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
-        return ResponseEntity.ok(new ApiResponse("success", convertedProducts, true));
+    public ResponseEntity<ApiResponse> getAllProducts(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size, @RequestParam(defaultValue = "id") String sort) {
+        try {
+            ProductPageDto page = productService.getProductsPage(cursor, size, ProductSort.from(sort));
+            return ResponseEntity.ok(new ApiResponse("success", page, true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    // Writes the catalog as a JSON array while rows are still being read, instead of
+    // materialising the whole list first.
+    @GetMapping("/all/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                productService.streamProducts(null, productDto -> {
+                    try {
+                        generator.writeObject(productDto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Catalog feed for partners: NDJSON or CSV read straight off a database cursor, gzipped
+    // on the fly when the client accepts it, optionally limited to products changed since a time.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        boolean gzip = acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, EXPORT_GZIP_BUFFER_SIZE);
+                catalogExporter.export(exportFormat, updatedSince, gzipStream);
+                gzipStream.finish();
+            } else {
+                catalogExporter.export(exportFormat, updatedSince, outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + exportFormat.getFileExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/product/{id}/product")
     public ResponseEntity<ApiResponse> getProductById(@PathVariable Long id) {
         try {
-            Product product = productService.getProductById(id);
-            ProductDto productDto = productService.convertToDto(product);
+            ProductDto productDto = productService.getProductDtoById(id);
             return ResponseEntity.ok(new ApiResponse("Success", productDto, true));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
         }
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> importProducts(@RequestBody List<AddProductRequest> products) {
+        ProductImportResultDto result = productImportService.importProducts(products);
+        return ResponseEntity.ok(new ApiResponse(importMessage(result), result, true));
+    }
+
+    // the CSV is parsed while the request body is read, so large files are never held whole
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ApiResponse> importProductsCsv(InputStream body) {
+        try {
+            Reader csv = new InputStreamReader(body, StandardCharsets.UTF_8);
+            ProductImportResultDto result = productImportService.importProductsCsv(csv);
+            return ResponseEntity.ok(new ApiResponse(importMessage(result), result, true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    private static String importMessage(ProductImportResultDto result) {
+        return "Imported " + result.getImported() + " of " + result.getReceived() + " products";
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/add")
     public ResponseEntity<ApiResponse> addProduct(@RequestBody AddProductRequest product) {
@@ -60,6 +173,8 @@ public class ProductController {
             return ResponseEntity.ok(new ApiResponse("Add product success", productDto, true));
         } catch (AlreadyExistsException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(e.getMessage(), null, false));
@@ -76,6 +191,22 @@ public class ProductController {
             return ResponseEntity.ok(new ApiResponse("update product success", productDto, true));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    // flash-sale products reserve stock through coalesced batches instead of per-order row locks
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/product/{productId}/flash-sale")
+    public ResponseEntity<ApiResponse> setFlashSale(@PathVariable Long productId, @RequestParam boolean enabled) {
+        try {
+            Product product = productService.setFlashSale(productId, enabled);
+            ProductDto productDto = productService.convertToDto(product);
+            return ResponseEntity.ok(new ApiResponse("Flash sale " + (enabled ? "enabled" : "disabled"), productDto,
+                    true));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(e.getMessage(), null, false));
         }
     }
 
@@ -184,17 +315,48 @@ public class ProductController {
         }
     }
 
-    // Endpoint to search products by name
+    // Endpoint to search products by name, brand, description and category
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse> searchProductsByName(@RequestParam String keyword) {
+    public ResponseEntity<ApiResponse> searchProductsByName(@RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         try {
-            List<Product> products = productService.searchProducts(keyword);
+            List<Product> products = productService.searchProducts(keyword, page, size, fuzzy);
             List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             if (products.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new ApiResponse("No products found", null, false));
             }
             return ResponseEntity.ok(new ApiResponse("Success", convertedProducts, true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse(e.getMessage(), null, false));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(e.getMessage(), null, false));
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse> suggestProducts(@RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<String> suggestions = productService.suggestProducts(prefix, limit);
+        return ResponseEntity.ok(new ApiResponse("Success", suggestions, true));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse> getFacetCounts(@RequestParam(defaultValue = "") List<String> category,
+            @RequestParam(defaultValue = "") List<String> brand,
+            @RequestParam(defaultValue = "") List<String> priceRange) {
+        FacetCountsDto facets = productService.getFacetCounts(category, brand, priceRange);
+        return ResponseEntity.ok(new ApiResponse("Success", facets, true));
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/search/reindex")
+    public ResponseEntity<ApiResponse> reindexProducts() {
+        try {
+            int indexed = productService.reindexProducts();
+            return ResponseEntity.ok(new ApiResponse("Reindex success", indexed, true));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse(e.getMessage(), null, false));
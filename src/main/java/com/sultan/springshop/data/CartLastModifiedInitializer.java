@@ -0,0 +1,25 @@
+package com.sultan.springshop.data;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stamps carts created before {@code cart.last_modified} existed with the
+ * current time, so the abandoned-cart sweep counts their idle time from the
+ * upgrade rather than skipping them forever. A no-op once every cart has a
+ * value.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartLastModifiedInitializer implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.update("UPDATE cart SET last_modified = now() WHERE last_modified IS NULL");
+    }
+}
@@ -0,0 +1,38 @@
+package com.sultan.springshop.data;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Product;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Moves the pooled id sequences past ids that were assigned by the identity
+ * columns before their tables switched to sequence ids. Runs once the schema
+ * is up to date and before any request is served.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        advance("product", Product.ID_SEQUENCE, Product.ID_ALLOCATION_SIZE);
+        advance("cart_item", CartItem.ID_SEQUENCE, CartItem.ID_ALLOCATION_SIZE);
+    }
+
+    private void advance(String table, String sequence, int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+        if (maxId != null && maxId > lastValue) {
+            // the pooled optimizer hands out the block ending at the fetched value
+            jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', ?, false)", Long.class,
+                    maxId + allocationSize);
+        }
+    }
+}
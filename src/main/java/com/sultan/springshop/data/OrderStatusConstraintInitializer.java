@@ -0,0 +1,61 @@
+package com.sultan.springshop.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Brings the CHECK constraint on {@code orders.order_status} in line with
+ * {@link OrderStatus}. Hibernate writes the allowed values when it creates the
+ * table and ddl-auto=update never changes them, so statuses added since would
+ * be rejected. Orders still PROCESSING, which no longer exists, become PAID if
+ * their payment went through and RESERVED otherwise. A no-op once the
+ * constraint allows exactly the current statuses.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStatusConstraintInitializer implements SmartInitializingSingleton {
+
+    static final String CONSTRAINT = "orders_order_status_check";
+    private static final Pattern QUOTED = Pattern.compile("'([A-Z_]+)'");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> definitions = jdbcTemplate.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'orders'::regclass AND conname = '" + CONSTRAINT + "'", String.class);
+        Set<String> statuses = Arrays.stream(OrderStatus.values()).map(Enum::name)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (definitions.size() == 1 && allowed(definitions.get(0)).equals(statuses)) {
+            return;
+        }
+        // in this order, so a restart after a failure part way picks up where it stopped
+        jdbcTemplate.execute("ALTER TABLE orders DROP CONSTRAINT IF EXISTS " + CONSTRAINT);
+        jdbcTemplate.update("UPDATE orders SET order_status = CASE WHEN payment_status = 'PAID' THEN 'PAID' "
+                + "ELSE 'RESERVED' END WHERE order_status = 'PROCESSING'");
+        jdbcTemplate.execute("ALTER TABLE orders ADD CONSTRAINT " + CONSTRAINT + " CHECK (order_status IN ("
+                + statuses.stream().map(status -> "'" + status + "'").collect(Collectors.joining(", ")) + "))");
+    }
+
+    private static Set<String> allowed(String definition) {
+        Set<String> allowed = new TreeSet<>();
+        Matcher matcher = QUOTED.matcher(definition);
+        while (matcher.find()) {
+            allowed.add(matcher.group(1));
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,8 @@
+package com.sultan.springshop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailySalesDto(LocalDate day, long orders, long units, BigDecimal revenue, long paidOrders,
+        BigDecimal paidRevenue) {
+}
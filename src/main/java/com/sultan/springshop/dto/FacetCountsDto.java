@@ -0,0 +1,18 @@
+package com.sultan.springshop.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetCountsDto {
+    private long total;
+    // each dimension is counted with the filters of the other two applied, largest first
+    private Map<String, Long> categories;
+    private Map<String, Long> brands;
+    private Map<String, Long> priceRanges;
+}
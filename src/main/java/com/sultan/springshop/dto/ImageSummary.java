@@ -0,0 +1,8 @@
+package com.sultan.springshop.dto;
+
+/**
+ * Image metadata without the blob, used when images are loaded in bulk for a
+ * list of products.
+ */
+public record ImageSummary(Long id, String fileName, String downloadUrl, Long productId) {
+}
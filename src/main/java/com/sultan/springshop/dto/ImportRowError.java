@@ -0,0 +1,7 @@
+package com.sultan.springshop.dto;
+
+/**
+ * Why one row of a bulk import was skipped; rows are numbered from 1 in input order.
+ */
+public record ImportRowError(int row, String message) {
+}
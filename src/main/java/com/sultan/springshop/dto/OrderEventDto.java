@@ -0,0 +1,10 @@
+package com.sultan.springshop.dto;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+
+public record OrderEventDto(int sequence, OrderEventType type, OrderStatus status, String detail,
+        LocalDateTime occurredAt) {
+}
@@ -0,0 +1,9 @@
+package com.sultan.springshop.dto;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+public record OrderStateDto(Long orderId, OrderStatus status, String paymentStatus, int version,
+        LocalDateTime updatedAt) {
+}
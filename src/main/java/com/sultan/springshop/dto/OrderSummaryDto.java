@@ -0,0 +1,21 @@
+package com.sultan.springshop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.model.Money;
+
+/**
+ * One row of a user's order history, read without loading the order's items.
+ */
+public record OrderSummaryDto(Long orderId, LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus status,
+        String paymentStatus, Long itemCount) {
+
+    // the constructor the repository's projection query calls, with the entity's converted total
+    public OrderSummaryDto(Long orderId, LocalDateTime orderDate, Money totalAmount, OrderStatus status,
+            String paymentStatus, Long itemCount) {
+        this(orderId, orderDate, totalAmount == null ? null : totalAmount.toBigDecimal(), status, paymentStatus,
+                itemCount);
+    }
+}
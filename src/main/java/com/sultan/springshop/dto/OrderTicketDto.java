@@ -0,0 +1,15 @@
+package com.sultan.springshop.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.sultan.springshop.enums.OrderTicketStatus;
+import com.sultan.springshop.exceptions.InsufficientStockException.StockShortage;
+
+/**
+ * An order accepted for asynchronous placement. Once placed, orderId is set;
+ * a failed ticket carries the reason and, for stock problems, the short lines.
+ */
+public record OrderTicketDto(String ticketId, Long userId, OrderTicketStatus status, Long orderId,
+        String message, List<StockShortage> shortages, LocalDateTime queuedAt, LocalDateTime completedAt) {
+}
@@ -1,6 +1,7 @@
 package com.sultan.springshop.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.sultan.springshop.model.Category;
@@ -15,6 +16,8 @@ public class ProductDto {
     private BigDecimal price;
     private int inventory;
     private String description;
+    private boolean flashSale;
+    private LocalDateTime updatedAt;
     private Category category;
     private List<ImageDto> images;
 }
@@ -0,0 +1,9 @@
+package com.sultan.springshop.dto;
+
+import com.sultan.springshop.model.Money;
+
+/**
+ * The facet values of a product, read without loading the entity.
+ */
+public record ProductFacetRow(Long id, String category, String brand, Money price) {
+}
@@ -0,0 +1,16 @@
+package com.sultan.springshop.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResultDto {
+    private int received;
+    private int imported;
+    private List<ImportRowError> errors;
+}
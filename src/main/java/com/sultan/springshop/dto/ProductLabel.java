@@ -0,0 +1,7 @@
+package com.sultan.springshop.dto;
+
+/**
+ * The searchable labels of a product, read without loading the entity.
+ */
+public record ProductLabel(Long id, String name, String brand) {
+}
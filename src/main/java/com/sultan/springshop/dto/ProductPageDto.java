@@ -0,0 +1,16 @@
+package com.sultan.springshop.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDto {
+    private List<ProductDto> products;
+    private String nextCursor; // null when this is the last page
+    private boolean hasNext;
+}
@@ -0,0 +1,10 @@
+package com.sultan.springshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one product or category over a date range.
+ */
+public record SalesBreakdownDto(Long id, String name, Long orders, Long units, BigDecimal revenue,
+        BigDecimal paidRevenue) {
+}
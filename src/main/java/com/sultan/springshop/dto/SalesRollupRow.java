@@ -0,0 +1,26 @@
+package com.sultan.springshop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.sultan.springshop.enums.RollupDimension;
+
+/**
+ * Sales to add onto one rollup row.
+ */
+public record SalesRollupRow(RollupDimension dimension, long dimensionId, LocalDate day, long orders, long units,
+        BigDecimal revenue, long paidOrders, long paidUnits, BigDecimal paidRevenue) {
+
+    public Key key() {
+        return new Key(dimension, dimensionId, day);
+    }
+
+    public SalesRollupRow plus(SalesRollupRow other) {
+        return new SalesRollupRow(dimension, dimensionId, day, orders + other.orders, units + other.units,
+                revenue.add(other.revenue), paidOrders + other.paidOrders, paidUnits + other.paidUnits,
+                paidRevenue.add(other.paidRevenue));
+    }
+
+    public record Key(RollupDimension dimension, long dimensionId, LocalDate day) {
+    }
+}
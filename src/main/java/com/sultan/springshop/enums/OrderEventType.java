@@ -0,0 +1,21 @@
+package com.sultan.springshop.enums;
+
+public enum OrderEventType {
+    PLACED(OrderStatus.PENDING),
+    RESERVED(OrderStatus.RESERVED),
+    PAID(OrderStatus.PAID),
+    SHIPPED(OrderStatus.SHIPPED),
+    DELIVERED(OrderStatus.DELIVERED),
+    CANCELLED(OrderStatus.CANCELLED),
+    REFUNDED(OrderStatus.REFUNDED);
+
+    private final OrderStatus targetStatus;
+
+    OrderEventType(OrderStatus targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+
+    public OrderStatus targetStatus() {
+        return targetStatus;
+    }
+}
@@ -1,9 +1,46 @@
 package com.sultan.springshop.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The states of an order and the transitions allowed between them. Cancelling
+ * is only possible before payment; afterwards the order is refunded instead.
+ */
 public enum OrderStatus {
     PENDING,
-    PROCESSING,
+    RESERVED,
+    PAID,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED,
+    REFUNDED;
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(RESERVED, PAID, CANCELLED));
+        TRANSITIONS.put(RESERVED, EnumSet.of(PAID, CANCELLED));
+        TRANSITIONS.put(PAID, EnumSet.of(SHIPPED, REFUNDED));
+        TRANSITIONS.put(SHIPPED, EnumSet.of(DELIVERED, REFUNDED));
+        TRANSITIONS.put(DELIVERED, EnumSet.of(REFUNDED));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(REFUNDED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    // the value kept in orders.payment_status, which reports and the payment flow read
+    public String paymentStatus() {
+        return switch (this) {
+            case PENDING, RESERVED -> "PENDING";
+            case PAID, SHIPPED, DELIVERED -> "PAID";
+            case CANCELLED -> "CANCELLED";
+            case REFUNDED -> "REFUNDED";
+        };
+    }
 }
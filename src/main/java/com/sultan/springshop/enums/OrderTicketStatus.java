@@ -0,0 +1,7 @@
+package com.sultan.springshop.enums;
+
+public enum OrderTicketStatus {
+    QUEUED,
+    PLACED,
+    FAILED
+}
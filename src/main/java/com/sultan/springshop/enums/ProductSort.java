@@ -0,0 +1,15 @@
+package com.sultan.springshop.enums;
+
+public enum ProductSort {
+    ID,
+    PRICE,
+    NAME;
+
+    public static ProductSort from(String value) {
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.sultan.springshop.enums;
+
+public enum RollupDimension {
+    DAY,
+    PRODUCT,
+    CATEGORY
+}
@@ -0,0 +1,23 @@
+package com.sultan.springshop.exceptions;
+
+import java.util.List;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<StockShortage> shortages;
+
+    public InsufficientStockException(List<StockShortage> shortages) {
+        super("Insufficient stock for " + shortages.stream()
+                .map(shortage -> shortage.productName() + " (requested " + shortage.requested() + ", available "
+                        + shortage.available() + ")")
+                .reduce((a, b) -> a + ", " + b).orElse("the order"));
+        this.shortages = List.copyOf(shortages);
+    }
+
+    public List<StockShortage> getShortages() {
+        return shortages;
+    }
+
+    public record StockShortage(Long productId, String productName, int requested, int available) {
+    }
+}
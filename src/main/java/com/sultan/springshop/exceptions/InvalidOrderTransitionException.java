@@ -0,0 +1,7 @@
+package com.sultan.springshop.exceptions;
+
+public class InvalidOrderTransitionException extends RuntimeException {
+    public InvalidOrderTransitionException(String message) {
+        super(message);
+    }
+}
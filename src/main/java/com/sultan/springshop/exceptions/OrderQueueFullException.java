@@ -0,0 +1,7 @@
+package com.sultan.springshop.exceptions;
+
+public class OrderQueueFullException extends RuntimeException {
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+}
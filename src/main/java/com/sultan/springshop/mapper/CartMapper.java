@@ -0,0 +1,45 @@
+package com.sultan.springshop.mapper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.dto.CartDto;
+import com.sultan.springshop.dto.CartItemDto;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class CartMapper {
+
+    private final ProductMapper productMapper;
+
+    public CartDto toDto(Cart cart) {
+        CartDto cartDto = new CartDto();
+        cartDto.setCartId(cart.getId());
+        cartDto.setTotalAmount(cart.getTotalAmount() == null ? null : cart.getTotalAmount().toBigDecimal());
+        if (cart.getItems() != null) {
+            Set<CartItemDto> items = new HashSet<>();
+            for (CartItem item : cart.getItems()) {
+                items.add(toDto(item));
+            }
+            cartDto.setItems(items);
+        }
+        return cartDto;
+    }
+
+    public CartItemDto toDto(CartItem item) {
+        CartItemDto itemDto = new CartItemDto();
+        itemDto.setId(item.getId());
+        itemDto.setQuantity(item.getQuantity());
+        itemDto.setUnitPrice(item.getUnitPrice() == null ? null : item.getUnitPrice().toBigDecimal());
+        if (item.getProduct() != null) {
+            itemDto.setProduct(productMapper.toDto(item.getProduct()));
+        }
+        return itemDto;
+    }
+}
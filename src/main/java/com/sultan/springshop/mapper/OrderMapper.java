@@ -0,0 +1,48 @@
+package com.sultan.springshop.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderItemDto;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+
+@Component
+public class OrderMapper {
+
+    public OrderDto toDto(Order order) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderId(order.getOrderId());
+        orderDto.setUserId(order.getUser() == null ? null : order.getUser().getId());
+        orderDto.setOrderDate(order.getOrderDate());
+        orderDto.setTotalAmount(order.getTotalAmount() == null ? null : order.getTotalAmount().toBigDecimal());
+        orderDto.setStatus(order.getOrderStatus() == null ? null : order.getOrderStatus().name());
+        orderDto.setPaymentStatus(order.getPaymentStatus());
+        orderDto.setPaymentId(order.getPaymentId());
+        if (order.getOrderItems() != null) {
+            List<OrderItemDto> items = new ArrayList<>(order.getOrderItems().size());
+            for (OrderItem item : order.getOrderItems()) {
+                items.add(toDto(item));
+            }
+            orderDto.setItems(items);
+        }
+        return orderDto;
+    }
+
+    public OrderItemDto toDto(OrderItem item) {
+        OrderItemDto itemDto = new OrderItemDto();
+        Product product = item.getProduct();
+        if (product != null) {
+            itemDto.setProductId(product.getId());
+            itemDto.setProductName(product.getName());
+            itemDto.setProductBrand(product.getBrand());
+        }
+        itemDto.setQuantity(item.getQuantity());
+        itemDto.setPrice(item.getPrice() == null ? null : item.getPrice().toBigDecimal());
+        return itemDto;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sultan.springshop.mapper;
+
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.dto.ImageDto;
+import com.sultan.springshop.dto.ImageSummary;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+
+@Component
+public class ProductMapper {
+
+    /**
+     * Maps everything but the images, which callers load in bulk and set
+     * themselves; reading them here would lazy-load one product at a time.
+     */
+    public ProductDto toDto(Product product) {
+        ProductDto productDto = new ProductDto();
+        productDto.setId(product.getId());
+        productDto.setName(product.getName());
+        productDto.setBrand(product.getBrand());
+        productDto.setPrice(product.getPrice() == null ? null : product.getPrice().toBigDecimal());
+        productDto.setInventory(product.getInventory());
+        productDto.setDescription(product.getDescription());
+        productDto.setFlashSale(product.isFlashSale());
+        productDto.setUpdatedAt(product.getUpdatedAt());
+        productDto.setCategory(copyOf(product.getCategory()));
+        return productDto;
+    }
+
+    /**
+     * A deep copy, for handing out a cached DTO without sharing it.
+     */
+    public ProductDto copy(ProductDto source) {
+        ProductDto productDto = new ProductDto();
+        productDto.setId(source.getId());
+        productDto.setName(source.getName());
+        productDto.setBrand(source.getBrand());
+        productDto.setPrice(source.getPrice());
+        productDto.setInventory(source.getInventory());
+        productDto.setDescription(source.getDescription());
+        productDto.setFlashSale(source.isFlashSale());
+        productDto.setUpdatedAt(source.getUpdatedAt());
+        productDto.setCategory(copyOf(source.getCategory()));
+        productDto.setImages(source.getImages() == null ? null : source.getImages().stream().map(this::copy).toList());
+        return productDto;
+    }
+
+    /**
+     * A detached product with the DTO's fields, for in-memory views that read
+     * a product but never persist it. Images are left out.
+     */
+    public Product toProduct(ProductDto source) {
+        Product product = new Product(source.getName(), source.getBrand(),
+                source.getPrice() == null ? null : Money.of(source.getPrice()), source.getInventory(),
+                source.getDescription(), copyOf(source.getCategory()));
+        product.setId(source.getId());
+        product.setFlashSale(source.isFlashSale());
+        product.setUpdatedAt(source.getUpdatedAt());
+        return product;
+    }
+
+    private ImageDto copy(ImageDto source) {
+        ImageDto imageDto = new ImageDto();
+        imageDto.setId(source.getId());
+        imageDto.setFileName(source.getFileName());
+        imageDto.setDownloadUrl(source.getDownloadUrl());
+        return imageDto;
+    }
+
+    // a detached copy, so no DTO holds an entity or its lazy products
+    private static Category copyOf(Category category) {
+        if (category == null) {
+            return null;
+        }
+        Category copy = new Category(category.getName());
+        copy.setId(category.getId());
+        return copy;
+    }
+
+    public ImageDto toImageDto(ImageSummary image) {
+        ImageDto imageDto = new ImageDto();
+        imageDto.setId(image.id());
+        imageDto.setFileName(image.fileName());
+        imageDto.setDownloadUrl(image.downloadUrl());
+        return imageDto;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sultan.springshop.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.RoleDto;
+import com.sultan.springshop.dto.UserDto;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.Role;
+import com.sultan.springshop.model.User;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class UserMapper {
+
+    private final OrderMapper orderMapper;
+    private final CartMapper cartMapper;
+
+    public UserDto toDto(User user) {
+        UserDto userDto = new UserDto();
+        userDto.setId(user.getId());
+        userDto.setFirstName(user.getFirstName());
+        userDto.setLastName(user.getLastName());
+        userDto.setEmail(user.getEmail());
+        if (user.getOrders() != null) {
+            List<OrderDto> orders = new ArrayList<>(user.getOrders().size());
+            for (Order order : user.getOrders()) {
+                orders.add(orderMapper.toDto(order));
+            }
+            userDto.setOrders(orders);
+        }
+        if (user.getCart() != null) {
+            userDto.setCart(cartMapper.toDto(user.getCart()));
+        }
+        if (user.getRoles() != null) {
+            List<RoleDto> roles = new ArrayList<>(user.getRoles().size());
+            for (Role role : user.getRoles()) {
+                roles.add(toDto(role));
+            }
+            userDto.setRoles(roles);
+        }
+        return userDto;
+    }
+
+    public RoleDto toDto(Role role) {
+        RoleDto roleDto = new RoleDto();
+        roleDto.setId(role.getId());
+        roleDto.setName(role.getName());
+        return roleDto;
+    }
+}
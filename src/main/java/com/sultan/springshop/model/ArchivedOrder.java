@@ -0,0 +1,65 @@
+package com.sultan.springshop.model;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order moved out of {@code orders} by the archiver. Rows keep their
+ * original ids and are only ever written by the archiver's SQL, so the
+ * entity is read-only.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "orders_archive", indexes = @Index(name = "idx_orders_archive_user_date",
+        columnList = "user_id, order_date"))
+public class ArchivedOrder {
+    @Id
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private Money totalAmount;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+    private String paymentStatus;
+    private String paymentId;
+    private LocalDateTime archivedAt;
+
+    @OneToMany(mappedBy = "order")
+    private Set<ArchivedOrderItem> orderItems = new HashSet<>();
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    // a detached copy in the hot shape, so archived orders map and replay like any other
+    public Order toOrder() {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setOrderDate(orderDate);
+        order.setTotalAmount(totalAmount);
+        order.setOrderStatus(orderStatus);
+        order.setPaymentStatus(paymentStatus);
+        order.setPaymentId(paymentId);
+        order.setUser(user);
+        for (ArchivedOrderItem item : orderItems) {
+            order.getOrderItems().add(new OrderItem(order, item.getProduct(), item.getQuantity(), item.getPrice()));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,30 @@
+package com.sultan.springshop.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "order_item_archive", indexes = @Index(name = "idx_order_item_archive_order_id",
+        columnList = "order_id"))
+public class ArchivedOrderItem {
+    @Id
+    private Long id;
+    private int quantity;
+    private Money price;
+
+    @ManyToOne
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+
+    @ManyToOne
+    @JoinColumn(name = "product_id")
+    private Product product;
+}
@@ -1,17 +1,28 @@
 package com.sultan.springshop.model;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
+import org.hibernate.annotations.UpdateTimestamp;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,39 +33,179 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_cart_last_modified", columnList = "last_modified"))
 public class Cart {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private Money totalAmount = Money.ZERO;
+
+    // drives the abandoned-cart sweep; edits through the methods below bump it even when only a line changed
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<CartItem> items = new HashSet<>();
 
-    @OneToOne
+    // lazy: the user drags in its roles, and cart views never read it
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
+    // product id -> line, built on first lookup from the loaded items
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Long, CartItem> itemsByProduct;
+
+    public void setItems(Set<CartItem> items) {
+        this.items = items;
+        this.itemsByProduct = null;
+    }
+
+    public Optional<CartItem> findItem(Long productId) {
+        return Optional.ofNullable(index().get(productId));
+    }
+
+    /**
+     * Adds the quantity to the product's line, or starts a line at the
+     * product's current price, and returns the line.
+     */
+    public CartItem addQuantity(Product product, int quantity) {
+        return addQuantity(product, quantity, product.getPrice());
+    }
+
+    /**
+     * As {@link #addQuantity(Product, int)}, with the price a new line starts
+     * at given, so the product can be a reference that is never loaded.
+     */
+    public CartItem addQuantity(Product product, int quantity, Money unitPrice) {
+        CartItem item = index().get(product.getId());
+        if (item != null) {
+            updateItem(item, item.getQuantity() + quantity, item.getUnitPrice());
+            return item;
+        }
+        item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        item.setTotalPrice();
+        addItem(item);
+        return item;
+    }
+
+    // a line for a product already in the cart replaces it
     public void addItem(CartItem item) {
+        Long productId = productId(item);
+        CartItem existing = productId == null ? null : index().get(productId);
+        if (existing == item) {
+            return;
+        }
+        if (existing != null) {
+            removeItem(existing);
+        }
+        index();
         this.items.add(item);
+        if (productId != null) {
+            itemsByProduct.put(productId, item);
+        }
         item.setCart(this);
-        updateTotalAmount();
+        adjustTotal(subtotal(item));
+        touch();
     }
 
     public void removeItem(CartItem item) {
-        this.items.remove(item);
+        index();
+        if (this.items.remove(item)) {
+            itemsByProduct.remove(productId(item), item);
+            adjustTotal(-subtotal(item));
+            touch();
+        }
         item.setCart(null);
-        updateTotalAmount();
     }
 
-    private void updateTotalAmount() {
-        this.totalAmount = items.stream().map(item -> {
-            BigDecimal unitPrice = item.getUnitPrice();
-            if (unitPrice == null) {
-                return BigDecimal.ZERO;
+    // for a line of this cart
+    public void updateItem(CartItem item, int quantity, Money unitPrice) {
+        index();
+        long before = subtotal(item);
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        item.setTotalPrice();
+        adjustTotal(subtotal(item) - before);
+        touch();
+    }
+
+    public void clearItems() {
+        this.items.clear();
+        this.itemsByProduct = new HashMap<>();
+        this.totalAmount = Money.ZERO;
+        touch();
+    }
+
+    // full recompute, which also rebuilds the index from the items
+    public void updateTotalAmount() {
+        this.itemsByProduct = null;
+        index();
+    }
+
+    /**
+     * Checks the incrementally kept total and index against a full pass over
+     * the items, for debug runs.
+     */
+    public void verifyTotalAmount() {
+        long total = 0;
+        for (CartItem item : items) {
+            total = Math.addExact(total, subtotal(item));
+            Long productId = productId(item);
+            if (itemsByProduct != null && productId != null && itemsByProduct.get(productId) != item) {
+                throw new IllegalStateException("Cart " + id + " index is missing product " + productId);
             }
-            return unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
-        }).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        if (totalAmount == null || total != totalAmount.minorUnits()) {
+            throw new IllegalStateException("Cart " + id + " total " + totalAmount + " does not match its items: "
+                    + Money.ofMinor(total));
+        }
+    }
+
+    // building the index passes over every item, so it sums them too; mutations then adjust by delta
+    private Map<Long, CartItem> index() {
+        if (itemsByProduct == null) {
+            Map<Long, CartItem> index = new HashMap<>();
+            long total = 0;
+            for (CartItem item : items) {
+                Long productId = productId(item);
+                if (productId != null) {
+                    index.put(productId, item);
+                }
+                total = Math.addExact(total, subtotal(item));
+            }
+            itemsByProduct = index;
+            if (totalAmount == null || total != totalAmount.minorUnits()) {
+                this.totalAmount = Money.ofMinor(total);
+            }
+        }
+        return itemsByProduct;
+    }
+
+    private void touch() {
+        this.lastModified = LocalDateTime.now();
+    }
+
+    private void adjustTotal(long delta) {
+        if (delta != 0) {
+            this.totalAmount = Money.ofMinor(Math.addExact(totalAmount.minorUnits(), delta));
+        }
+    }
+
+    private static Long productId(CartItem item) {
+        return item.getProduct() == null ? null : item.getProduct().getId();
+    }
+
+    // in cents
+    private static long subtotal(CartItem item) {
+        Money unitPrice = item.getUnitPrice();
+        return unitPrice == null ? 0 : Math.multiplyExact(unitPrice.minorUnits(), item.getQuantity());
     }
 }
@@ -0,0 +1,83 @@
+package com.sultan.springshop.model;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * An amount of money as a whole number of minor units (cents) plus its
+ * currency. Sums and products are exact long arithmetic that fails on
+ * overflow rather than wrapping, and adding two currencies is an error.
+ * Serialized to JSON as a plain decimal, like the BigDecimal it replaces.
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * Rejects amounts with more decimals than the currency has, instead of
+     * rounding them away.
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        try {
+            return new Money(amount.movePointRight(currency.getDefaultFractionDigits()).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a valid " + currency + " amount: " + amount.toPlainString());
+        }
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, minorUnitsOf(other)), currency);
+    }
+
+    public Money times(int quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, minorUnitsOf(other));
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private long minorUnitsOf(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " and " + other.currency);
+        }
+        return other.minorUnits;
+    }
+}
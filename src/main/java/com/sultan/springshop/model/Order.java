@@ -3,7 +3,6 @@ package com.sultan.springshop.model;
 import java.util.Set;
 import java.util.HashSet;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import com.sultan.springshop.enums.OrderStatus;
@@ -12,9 +11,11 @@ import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -27,13 +28,13 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_date", columnList = "user_id, order_date"))
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long orderId;
     private LocalDateTime orderDate;
-    private BigDecimal totalAmount;
+    private Money totalAmount;
     @Enumerated(EnumType.STRING)
     private OrderStatus orderStatus;
     private String paymentStatus; // e.g., PENDING, PAID, FAILED
@@ -42,7 +43,8 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<OrderItem> orderItems = new HashSet<>();
 
-    @ManyToOne
+    // lazy: the user drags in its cart and roles, and order views only need the id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -0,0 +1,54 @@
+package com.sultan.springshop.model;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of an order's append-only event log. The unique (order, sequence)
+ * pair makes a second writer appending the same sequence fail instead of
+ * forking the history.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "order_event", uniqueConstraints = @UniqueConstraint(name = "uk_order_event_order_sequence", columnNames = {
+        "order_id", "sequence" }))
+public class OrderEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    @Column(nullable = false)
+    private int sequence;
+    @Enumerated(EnumType.STRING)
+    private OrderEventType type;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status; // the status the event led to
+    private String detail;
+    private LocalDateTime occurredAt;
+
+    public OrderEvent(Long orderId, int sequence, OrderEventType type, OrderStatus status, String detail,
+            LocalDateTime occurredAt) {
+        this.orderId = orderId;
+        this.sequence = sequence;
+        this.type = type;
+        this.status = status;
+        this.detail = detail;
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sultan.springshop.model;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order's state as of one event of its log, so rebuilding it only has to
+ * read the events after that one.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Entity
+@Table(name = "order_snapshot")
+public class OrderSnapshot {
+    @Id
+    private Long orderId;
+    private int sequence;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    private LocalDateTime updatedAt;
+}
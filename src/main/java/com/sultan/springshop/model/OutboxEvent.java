@@ -0,0 +1,49 @@
+package com.sultan.springshop.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An event waiting in the outbox. It is written in the same transaction as the
+ * change it describes and marked published once the relay has handed it on.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_unpublished", columnList = "published_at, id"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false, unique = true, length = 36)
+    private String eventId; // stays the same across redeliveries, for consumers to deduplicate on
+    private String aggregateType;
+    private String aggregateId;
+    private String eventType;
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    private LocalDateTime createdAt;
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public OutboxEvent(String eventId, String aggregateType, String aggregateId, String eventType, String payload,
+            LocalDateTime createdAt) {
+        this.eventId = eventId;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
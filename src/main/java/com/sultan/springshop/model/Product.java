@@ -1,16 +1,23 @@
 package com.sultan.springshop.model;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -19,16 +26,34 @@ import lombok.Setter;
 @Setter
 @NoArgsConstructor
 @Entity
+// the (value, id) pairs back the keyset pages sorted by price and by name
+@Table(indexes = { @Index(name = "idx_product_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "name, id") })
 public class Product {
+    public static final String ID_SEQUENCE = "product_seq";
+    // ids are reserved in blocks so bulk inserts can be batched; keep in step with hibernate.jdbc.batch_size
+    public static final int ID_ALLOCATION_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String name;
     private String brand;
-    private BigDecimal price;
+    private Money price;
     private int inventory;
     private String description;
 
+    // orders for flash-sale products reserve stock through FlashSaleAllocator's coalesced batches
+    @ColumnDefault("false")
+    private boolean flashSale;
+
+    // drives incremental catalog exports; image changes bump it explicitly
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
@@ -36,7 +61,7 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Image> images;
 
-    public Product(String name, String brand, BigDecimal price, int inventory, String description, Category category) {
+    public Product(String name, String brand, Money price, int inventory, String description, Category category) {
         this.name = name;
         this.brand = brand;
         this.price = price;
@@ -0,0 +1,31 @@
+package com.sultan.springshop.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Sales of one day, overall or for one product or category. Rows are only
+ * ever added to with upserts, see {@code SalesRollupWriteRepository}.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_rollup", indexes = @Index(name = "idx_sales_rollup_dimension_day", columnList = "dimension, sales_day"))
+public class SalesRollup {
+    @EmbeddedId
+    private SalesRollupId id;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+    private long paidOrders;
+    private long paidUnits;
+    private BigDecimal paidRevenue;
+}
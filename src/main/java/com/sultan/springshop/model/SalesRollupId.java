@@ -0,0 +1,27 @@
+package com.sultan.springshop.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import com.sultan.springshop.enums.RollupDimension;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SalesRollupId implements Serializable {
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private RollupDimension dimension;
+    private Long dimensionId; // product or category id; 0 for DAY rows and uncategorized products
+    @Column(name = "sales_day")
+    private LocalDate day;
+}
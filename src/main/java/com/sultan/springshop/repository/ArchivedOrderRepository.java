@@ -0,0 +1,41 @@
+package com.sultan.springshop.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.sultan.springshop.dto.OrderSummaryDto;
+import com.sultan.springshop.model.ArchivedOrder;
+
+// the read queries mirror OrderRepository's, so hot and archived results merge in the same order
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, ArchivedOrderWriteRepository {
+
+    @Query("SELECT o FROM ArchivedOrder o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.category WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<ArchivedOrder> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT o FROM ArchivedOrder o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.category WHERE o.orderId = :orderId")
+    Optional<ArchivedOrder> findDetailById(@Param("orderId") Long orderId);
+
+    String ORDER_SUMMARY = "SELECT new com.sultan.springshop.dto.OrderSummaryDto(o.orderId, o.orderDate, "
+            + "o.totalAmount, o.orderStatus, o.paymentStatus, "
+            + "(SELECT COUNT(i) FROM ArchivedOrderItem i WHERE i.order = o)) FROM ArchivedOrder o ";
+
+    @Query(ORDER_SUMMARY + "WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(ORDER_SUMMARY + "WHERE o.user.id = :userId AND (o.orderDate < :orderDate "
+            + "OR (o.orderDate = :orderDate AND o.orderId < :orderId)) ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findSummariesByUserIdBefore(@Param("userId") Long userId,
+            @Param("orderDate") LocalDateTime orderDate, @Param("orderId") Long orderId, Pageable pageable);
+
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS units FROM ArchivedOrderItem oi "
+            + "GROUP BY oi.product.id")
+    List<ProductRepository.UnitsSold> sumUnitsSoldByProduct();
+}
@@ -0,0 +1,30 @@
+package com.sultan.springshop.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+/**
+ * Moves orders between the hot tables and the archive tables with plain SQL,
+ * since no entity spans both.
+ */
+public interface ArchivedOrderWriteRepository {
+
+    /**
+     * Moves up to {@code limit} of the oldest orders placed before the cutoff
+     * and in one of the statuses, with their items, in a single statement.
+     * Orders locked by another transaction are skipped and picked up by a
+     * later batch.
+     */
+    MovedRows moveOrdersBefore(LocalDateTime cutoff, Collection<OrderStatus> statuses, int limit);
+
+    /**
+     * Moves an archived order with its items back to the hot tables, in a
+     * single statement. Nothing is moved if the order is not archived.
+     */
+    MovedRows restoreOrder(Long orderId);
+
+    record MovedRows(int orders, int items) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.sultan.springshop.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.sultan.springshop.enums.OrderStatus;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ArchivedOrderWriteRepositoryImpl implements ArchivedOrderWriteRepository {
+
+    // every step is a CTE of one statement, so the batch is moved whole or not at all; the
+    // foreign keys are checked at the end of the statement, once both tables have moved
+    private static final String MOVE_SQL = "WITH picked AS (SELECT order_id FROM orders "
+            + "WHERE order_date < :cutoff AND order_status IN (:statuses) "
+            + "ORDER BY order_date, order_id LIMIT :limit FOR UPDATE SKIP LOCKED), "
+            + "moved_items AS (DELETE FROM order_item WHERE order_id IN (SELECT order_id FROM picked) "
+            + "RETURNING id, quantity, price, order_id, product_id), "
+            + "moved_orders AS (DELETE FROM orders WHERE order_id IN (SELECT order_id FROM picked) "
+            + "RETURNING order_id, order_date, total_amount, order_status, payment_status, payment_id, user_id), "
+            + "archived_orders AS (INSERT INTO orders_archive (order_id, order_date, total_amount, order_status, "
+            + "payment_status, payment_id, user_id, archived_at) SELECT order_id, order_date, total_amount, "
+            + "order_status, payment_status, payment_id, user_id, :now FROM moved_orders RETURNING order_id), "
+            + "archived_items AS (INSERT INTO order_item_archive (id, quantity, price, order_id, product_id) "
+            + "SELECT id, quantity, price, order_id, product_id FROM moved_items RETURNING id) "
+            + "SELECT (SELECT COUNT(*) FROM archived_orders) AS orders, "
+            + "(SELECT COUNT(*) FROM archived_items) AS items";
+
+    private static final String RESTORE_SQL = "WITH restored_orders AS (DELETE FROM orders_archive "
+            + "WHERE order_id = :orderId "
+            + "RETURNING order_id, order_date, total_amount, order_status, payment_status, payment_id, user_id), "
+            + "restored_items AS (DELETE FROM order_item_archive "
+            + "WHERE order_id IN (SELECT order_id FROM restored_orders) "
+            + "RETURNING id, quantity, price, order_id, product_id), "
+            + "live_orders AS (INSERT INTO orders (order_id, order_date, total_amount, order_status, "
+            + "payment_status, payment_id, user_id) SELECT order_id, order_date, total_amount, order_status, "
+            + "payment_status, payment_id, user_id FROM restored_orders RETURNING order_id), "
+            + "live_items AS (INSERT INTO order_item (id, quantity, price, order_id, product_id) "
+            + "SELECT id, quantity, price, order_id, product_id FROM restored_items RETURNING id) "
+            + "SELECT (SELECT COUNT(*) FROM live_orders) AS orders, "
+            + "(SELECT COUNT(*) FROM live_items) AS items";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public MovedRows moveOrdersBefore(LocalDateTime cutoff, Collection<OrderStatus> statuses, int limit) {
+        if (statuses.isEmpty()) {
+            return new MovedRows(0, 0);
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("statuses", statuses.stream().map(OrderStatus::name).toList())
+                .addValue("limit", limit)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        return jdbcTemplate.queryForObject(MOVE_SQL, parameters,
+                (row, i) -> new MovedRows(row.getInt("orders"), row.getInt("items")));
+    }
+
+    @Override
+    public MovedRows restoreOrder(Long orderId) {
+        return jdbcTemplate.queryForObject(RESTORE_SQL, new MapSqlParameterSource("orderId", orderId),
+                (row, i) -> new MovedRows(row.getInt("orders"), row.getInt("items")));
+    }
+}
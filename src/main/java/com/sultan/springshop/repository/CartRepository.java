@@ -1,10 +1,31 @@
 package com.sultan.springshop.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.sultan.springshop.model.Cart;
 
-public interface CartRepository extends JpaRepository<Cart, Long> {
+import jakarta.persistence.LockModeType;
+
+public interface CartRepository extends JpaRepository<Cart, Long>, CartSweepRepository {
+
+    // items, their products and categories in the same query, so mapping triggers no further selects
+    String CART_DETAIL = "SELECT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.category ";
+
+    @Query(CART_DETAIL + "WHERE c.user.id = :userId")
+    Cart findByUserId(@Param("userId") Long userId);
+
+    @Query(CART_DETAIL + "WHERE c.id = :cartId")
+    Optional<Cart> findDetailById(@Param("cartId") Long cartId);
 
-    Cart findByUserId(Long userId);
+    // the lock that keeps edits to one cart in line; Postgres cannot lock the outer-joined
+    // side of the detail query, so the row is locked on its own before the detail is read
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.id = :cartId")
+    Optional<Cart> lockById(@Param("cartId") Long cartId);
 }
@@ -0,0 +1,20 @@
+package com.sultan.springshop.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deletes abandoned carts with plain SQL, so no cart or item is loaded.
+ */
+public interface CartSweepRepository {
+
+    /**
+     * Deletes up to {@code limit} of the carts untouched since the cutoff,
+     * with their items, in a single statement. Carts locked by another
+     * transaction, such as an edit in progress or another node's sweep, are
+     * skipped.
+     */
+    DeletedRows deleteUntouchedBefore(LocalDateTime cutoff, int limit);
+
+    record DeletedRows(int carts, int items) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.sultan.springshop.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CartSweepRepositoryImpl implements CartSweepRepository {
+
+    // one statement, so a batch goes whole or not at all; a cart edited while the batch waited
+    // for its lock is re-checked against the cutoff by FOR UPDATE and left alone
+    private static final String DELETE_SQL = "WITH picked AS (SELECT id FROM cart "
+            + "WHERE last_modified < :cutoff ORDER BY last_modified, id LIMIT :limit FOR UPDATE SKIP LOCKED), "
+            + "deleted_items AS (DELETE FROM cart_item WHERE cart_id IN (SELECT id FROM picked) RETURNING id), "
+            + "deleted_carts AS (DELETE FROM cart WHERE id IN (SELECT id FROM picked) RETURNING id) "
+            + "SELECT (SELECT COUNT(*) FROM deleted_carts) AS carts, "
+            + "(SELECT COUNT(*) FROM deleted_items) AS items";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public DeletedRows deleteUntouchedBefore(LocalDateTime cutoff, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", limit);
+        return jdbcTemplate.queryForObject(DELETE_SQL, parameters,
+                (row, i) -> new DeletedRows(row.getInt("carts"), row.getInt("items")));
+    }
+}
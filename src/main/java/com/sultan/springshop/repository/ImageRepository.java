@@ -1,14 +1,22 @@
 package com.sultan.springshop.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.sultan.springshop.dto.ImageSummary;
 import com.sultan.springshop.model.Image;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
 
     public List<Image> findByProductId(Long id);
+
+    @Query("SELECT new com.sultan.springshop.dto.ImageSummary(i.id, i.fileName, i.downloadUrl, i.product.id) "
+            + "FROM Image i WHERE i.product.id IN :productIds")
+    List<ImageSummary> findByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
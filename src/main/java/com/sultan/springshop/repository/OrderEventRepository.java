@@ -0,0 +1,14 @@
+package com.sultan.springshop.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.sultan.springshop.model.OrderEvent;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    List<OrderEvent> findByOrderIdOrderBySequence(Long orderId);
+
+    List<OrderEvent> findByOrderIdAndSequenceGreaterThanOrderBySequence(Long orderId, int sequence);
+}
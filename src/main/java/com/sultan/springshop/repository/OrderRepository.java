@@ -1,11 +1,52 @@
 package com.sultan.springshop.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.sultan.springshop.dto.OrderSummaryDto;
 import com.sultan.springshop.model.Order;
 
+import jakarta.persistence.LockModeType;
+
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserId(Long userId);
+
+    // items, their products and categories in the same query, so mapping triggers no further selects
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.category WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.category WHERE o.orderId = :orderId")
+    Optional<Order> findDetailById(@Param("orderId") Long orderId);
+
+    // the lock that keeps status changes to one order in line
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = :orderId")
+    Optional<Order> lockById(@Param("orderId") Long orderId);
+
+    // archived orders keep their ids, so the highest id ever placed may only be in the archive
+    @Query(value = "SELECT GREATEST((SELECT MAX(order_id) FROM orders), (SELECT MAX(order_id) FROM orders_archive))",
+            nativeQuery = true)
+    Long findMaxOrderId();
+
+    // Order history, newest first, walking idx_orders_user_date; the item count is a
+    // correlated subquery so it only runs for the rows on the page.
+    String ORDER_SUMMARY = "SELECT new com.sultan.springshop.dto.OrderSummaryDto(o.orderId, o.orderDate, "
+            + "o.totalAmount, o.orderStatus, o.paymentStatus, "
+            + "(SELECT COUNT(i) FROM OrderItem i WHERE i.order = o)) FROM Order o ";
+
+    @Query(ORDER_SUMMARY + "WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(ORDER_SUMMARY + "WHERE o.user.id = :userId AND (o.orderDate < :orderDate "
+            + "OR (o.orderDate = :orderDate AND o.orderId < :orderId)) ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<OrderSummaryDto> findSummariesByUserIdBefore(@Param("userId") Long userId,
+            @Param("orderDate") LocalDateTime orderDate, @Param("orderId") Long orderId, Pageable pageable);
 }
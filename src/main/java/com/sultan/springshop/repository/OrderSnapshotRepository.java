@@ -0,0 +1,8 @@
+package com.sultan.springshop.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.sultan.springshop.model.OrderSnapshot;
+
+public interface OrderSnapshotRepository extends JpaRepository<OrderSnapshot, Long> {
+}
@@ -0,0 +1,29 @@
+package com.sultan.springshop.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stock changes done in SQL rather than through loaded entities, so that
+ * concurrent orders cannot overwrite each other's decrements.
+ */
+public interface ProductInventoryRepository {
+
+    /**
+     * Takes the given quantities off the products' stock in one JDBC batch.
+     * Each update only applies if enough stock is left, and the returned ids
+     * are the products it did not apply to. Callers roll back the transaction
+     * when that set is not empty. A negative quantity puts stock back and
+     * always applies.
+     */
+    Set<Long> decrementInventory(Map<Long, Integer> quantitiesByProduct);
+
+    Map<Long, Integer> findInventoryByIds(Collection<Long> productIds);
+
+    /**
+     * Reads a product's stock and locks its row until the transaction ends,
+     * or returns null if there is no such product.
+     */
+    Integer findInventoryForUpdate(Long productId);
+}
@@ -0,0 +1,71 @@
+package com.sultan.springshop.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ProductInventoryRepositoryImpl implements ProductInventoryRepository {
+
+    private static final String DECREMENT_SQL = "UPDATE product SET inventory = inventory - :quantity, "
+            + "updated_at = :updatedAt WHERE id = :id AND inventory >= :quantity";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<Long> decrementInventory(Map<Long, Integer> quantitiesByProduct) {
+        if (quantitiesByProduct.isEmpty()) {
+            return Set.of();
+        }
+        // rows are locked in id order, so two orders sharing products cannot deadlock
+        List<Long> productIds = new ArrayList<>(new TreeMap<>(quantitiesByProduct).keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        SqlParameterSource[] batch = new SqlParameterSource[productIds.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("id", productIds.get(i))
+                    .addValue("quantity", quantitiesByProduct.get(productIds.get(i)))
+                    .addValue("updatedAt", now);
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, batch);
+        Set<Long> insufficient = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insufficient.add(productIds.get(i));
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    public Map<Long, Integer> findInventoryByIds(Collection<Long> productIds) {
+        Map<Long, Integer> inventory = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            jdbcTemplate.query("SELECT id, inventory FROM product WHERE id IN (:ids)", Map.of("ids", productIds),
+                    row -> {
+                        inventory.put(row.getLong("id"), row.getInt("inventory"));
+                    });
+        }
+        return inventory;
+    }
+
+    @Override
+    public Integer findInventoryForUpdate(Long productId) {
+        List<Integer> inventory = jdbcTemplate.queryForList("SELECT inventory FROM product WHERE id = :id FOR UPDATE",
+                Map.of("id", productId), Integer.class);
+        return inventory.isEmpty() ? null : inventory.get(0);
+    }
+}
@@ -2,14 +2,30 @@ package com.sultan.springshop.repository;
 
 import org.springframework.stereotype.Repository;
 
+import com.sultan.springshop.dto.ProductFacetRow;
+import com.sultan.springshop.dto.ProductLabel;
+import com.sultan.springshop.model.Money;
 import com.sultan.springshop.model.Product;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductInventoryRepository {
 
     List<Product> findByCategoryName(String category);
 
@@ -27,4 +43,82 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByNameContainingIgnoreCase(String name);
 
+    // Keyset (seek) pagination: each page starts strictly after the last row of
+    // the previous one, so the cost of a page does not grow with its depth.
+    // Rows without a price or name sort last, as Postgres orders ascending nulls.
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id > :afterId ORDER BY p.id")
+    List<Product> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllByOrderByPriceAscIdAsc(Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category "
+            + "WHERE p.price > :price OR (p.price = :price AND p.id > :afterId) OR p.price IS NULL "
+            + "ORDER BY p.price NULLS LAST, p.id")
+    List<Product> findPageAfterPrice(@Param("price") Money price, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.price IS NULL AND p.id > :afterId "
+            + "ORDER BY p.id")
+    List<Product> findPageAfterNullPrice(@Param("afterId") Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllByOrderByNameAscIdAsc(Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category "
+            + "WHERE p.name > :name OR (p.name = :name AND p.id > :afterId) OR p.name IS NULL "
+            + "ORDER BY p.name NULLS LAST, p.id")
+    List<Product> findPageAfterName(@Param("name") String name, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.name IS NULL AND p.id > :afterId "
+            + "ORDER BY p.id")
+    List<Product> findPageAfterNullName(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category ORDER BY p.id")
+    Stream<Product> streamAllWithCategory();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.updatedAt >= :updatedSince ORDER BY p.id")
+    Stream<Product> streamUpdatedSinceWithCategory(@Param("updatedSince") LocalDateTime updatedSince);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.flashSale = :enabled WHERE p.id = :productId")
+    int updateFlashSale(@Param("productId") Long productId, @Param("enabled") boolean enabled);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.updatedAt = :updatedAt WHERE p.id = :productId")
+    void touchUpdatedAt(@Param("productId") Long productId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.sultan.springshop.dto.ProductLabel(p.id, p.name, p.brand) FROM Product p")
+    Stream<ProductLabel> streamAllLabels();
+
+    @Query("SELECT new com.sultan.springshop.dto.ProductLabel(p.id, p.name, p.brand) FROM Product p "
+            + "WHERE p.name IN :names")
+    List<ProductLabel> findLabelsByNameIn(@Param("names") Collection<String> names);
+
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
+
+    @Query("SELECT new com.sultan.springshop.dto.ProductFacetRow(p.id, c.name, p.brand, p.price) "
+            + "FROM Product p LEFT JOIN p.category c WHERE p.id BETWEEN :fromId AND :toId")
+    List<ProductFacetRow> findFacetRows(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS units FROM OrderItem oi GROUP BY oi.product.id")
+    List<UnitsSold> sumUnitsSoldByProduct();
+
+    interface UnitsSold {
+        Long getProductId();
+
+        Long getUnits();
+    }
+
 }
@@ -0,0 +1,38 @@
+package com.sultan.springshop.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.sultan.springshop.dto.DailySalesDto;
+import com.sultan.springshop.dto.SalesBreakdownDto;
+import com.sultan.springshop.model.SalesRollup;
+import com.sultan.springshop.model.SalesRollupId;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollupId>, SalesRollupWriteRepository {
+
+    @Query("SELECT new com.sultan.springshop.dto.DailySalesDto(r.id.day, r.orders, r.units, r.revenue, "
+            + "r.paidOrders, r.paidRevenue) FROM SalesRollup r "
+            + "WHERE r.id.dimension = com.sultan.springshop.enums.RollupDimension.DAY AND r.id.dimensionId = 0 "
+            + "AND r.id.day BETWEEN :from AND :to ORDER BY r.id.day")
+    List<DailySalesDto> findDailySales(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.sultan.springshop.dto.SalesBreakdownDto(r.id.dimensionId, p.name, SUM(r.orders), "
+            + "SUM(r.units), SUM(r.revenue), SUM(r.paidRevenue)) FROM SalesRollup r "
+            + "LEFT JOIN Product p ON p.id = r.id.dimensionId "
+            + "WHERE r.id.dimension = com.sultan.springshop.enums.RollupDimension.PRODUCT "
+            + "AND r.id.day BETWEEN :from AND :to GROUP BY r.id.dimensionId, p.name ORDER BY SUM(r.revenue) DESC")
+    List<SalesBreakdownDto> findTopProducts(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            Pageable pageable);
+
+    @Query("SELECT new com.sultan.springshop.dto.SalesBreakdownDto(r.id.dimensionId, COALESCE(c.name, 'Uncategorized'), "
+            + "SUM(r.orders), SUM(r.units), SUM(r.revenue), SUM(r.paidRevenue)) FROM SalesRollup r "
+            + "LEFT JOIN Category c ON c.id = r.id.dimensionId "
+            + "WHERE r.id.dimension = com.sultan.springshop.enums.RollupDimension.CATEGORY "
+            + "AND r.id.day BETWEEN :from AND :to GROUP BY r.id.dimensionId, c.name ORDER BY SUM(r.revenue) DESC")
+    List<SalesBreakdownDto> findCategorySales(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
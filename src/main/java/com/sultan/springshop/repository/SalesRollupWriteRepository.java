@@ -0,0 +1,34 @@
+package com.sultan.springshop.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.sultan.springshop.dto.SalesRollupRow;
+
+/**
+ * Rollup writes done with Postgres upserts, so that concurrent writers add
+ * onto a row instead of overwriting it.
+ */
+public interface SalesRollupWriteRepository {
+
+    /**
+     * Adds the rows onto the stored rollups in one JDBC batch, creating the
+     * rows that do not exist yet. Rows are written in key order, so two
+     * writers sharing rows cannot deadlock.
+     */
+    void addAll(Collection<SalesRollupRow> rows);
+
+    /**
+     * Sums up the orders with ids in the range straight from the order
+     * tables, hot and archived, per day, per day and product, and per day and
+     * category.
+     */
+    List<SalesRollupRow> aggregateOrders(long fromOrderId, long toOrderId);
+
+    /**
+     * Returns whether each order with an id in the range, hot or archived, is
+     * paid, keyed by order id.
+     */
+    Map<Long, Boolean> findPaidByOrderId(long fromOrderId, long toOrderId);
+}
@@ -0,0 +1,117 @@
+package com.sultan.springshop.repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.enums.RollupDimension;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class SalesRollupWriteRepositoryImpl implements SalesRollupWriteRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO sales_rollup (dimension, dimension_id, sales_day, orders, "
+            + "units, revenue, paid_orders, paid_units, paid_revenue) VALUES (:dimension, :dimensionId, :day, "
+            + ":orders, :units, :revenue, :paidOrders, :paidUnits, :paidRevenue) "
+            + "ON CONFLICT (dimension, dimension_id, sales_day) DO UPDATE SET "
+            + "orders = sales_rollup.orders + EXCLUDED.orders, units = sales_rollup.units + EXCLUDED.units, "
+            + "revenue = sales_rollup.revenue + EXCLUDED.revenue, "
+            + "paid_orders = sales_rollup.paid_orders + EXCLUDED.paid_orders, "
+            + "paid_units = sales_rollup.paid_units + EXCLUDED.paid_units, "
+            + "paid_revenue = sales_rollup.paid_revenue + EXCLUDED.paid_revenue";
+
+    // the archiver moves orders in single statements, so one read sees each order in exactly one table
+    private static final String HOT_AND_ARCHIVED_ORDERS = "SELECT order_id, order_date, payment_status FROM orders "
+            + "UNION ALL SELECT order_id, order_date, payment_status FROM orders_archive";
+    private static final String HOT_AND_ARCHIVED_ITEMS = "SELECT order_id, product_id, quantity, price FROM order_item "
+            + "UNION ALL SELECT order_id, product_id, quantity, price FROM order_item_archive";
+
+    // one pass over the range yields all three dimensions; an order lies in exactly one
+    // range, so distinct order counts of different ranges can simply be added
+    private static final String AGGREGATE_SQL = "SELECT CAST(o.order_date AS date) AS sales_day, "
+            + "oi.product_id, p.category_id, GROUPING(oi.product_id) AS all_products, "
+            + "GROUPING(p.category_id) AS all_categories, COUNT(DISTINCT o.order_id) AS orders, "
+            + "SUM(oi.quantity) AS units, SUM(oi.price * oi.quantity) AS revenue, "
+            + "COUNT(DISTINCT o.order_id) FILTER (WHERE o.payment_status = 'PAID') AS paid_orders, "
+            + "COALESCE(SUM(oi.quantity) FILTER (WHERE o.payment_status = 'PAID'), 0) AS paid_units, "
+            + "COALESCE(SUM(oi.price * oi.quantity) FILTER (WHERE o.payment_status = 'PAID'), 0) AS paid_revenue "
+            + "FROM (" + HOT_AND_ARCHIVED_ORDERS + ") o JOIN (" + HOT_AND_ARCHIVED_ITEMS + ") oi "
+            + "ON oi.order_id = o.order_id "
+            + "LEFT JOIN product p ON p.id = oi.product_id "
+            + "WHERE o.order_id BETWEEN :fromId AND :toId "
+            + "GROUP BY GROUPING SETS ((CAST(o.order_date AS date)), (CAST(o.order_date AS date), oi.product_id), "
+            + "(CAST(o.order_date AS date), p.category_id))";
+
+    private static final String PAID_SQL = "SELECT order_id, payment_status = 'PAID' AS paid FROM ("
+            + HOT_AND_ARCHIVED_ORDERS + ") o WHERE order_id BETWEEN :fromId AND :toId";
+
+    private static final Comparator<SalesRollupRow> KEY_ORDER = Comparator.comparing(SalesRollupRow::dimension)
+            .thenComparingLong(SalesRollupRow::dimensionId).thenComparing(SalesRollupRow::day);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(Collection<SalesRollupRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<SalesRollupRow> sorted = new ArrayList<>(rows);
+        sorted.sort(KEY_ORDER);
+        SqlParameterSource[] batch = new SqlParameterSource[sorted.size()];
+        for (int i = 0; i < batch.length; i++) {
+            SalesRollupRow row = sorted.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("dimension", row.dimension().name())
+                    .addValue("dimensionId", row.dimensionId())
+                    .addValue("day", Date.valueOf(row.day()))
+                    .addValue("orders", row.orders())
+                    .addValue("units", row.units())
+                    .addValue("revenue", row.revenue())
+                    .addValue("paidOrders", row.paidOrders())
+                    .addValue("paidUnits", row.paidUnits())
+                    .addValue("paidRevenue", row.paidRevenue());
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    @Override
+    public List<SalesRollupRow> aggregateOrders(long fromOrderId, long toOrderId) {
+        return jdbcTemplate.query(AGGREGATE_SQL, Map.of("fromId", fromOrderId, "toId", toOrderId), (row, i) -> {
+            RollupDimension dimension;
+            long dimensionId;
+            if (row.getInt("all_products") == 0) {
+                dimension = RollupDimension.PRODUCT;
+                dimensionId = row.getLong("product_id");
+            } else if (row.getInt("all_categories") == 0) {
+                dimension = RollupDimension.CATEGORY;
+                dimensionId = row.getLong("category_id"); // 0 when uncategorized
+            } else {
+                dimension = RollupDimension.DAY;
+                dimensionId = 0;
+            }
+            return new SalesRollupRow(dimension, dimensionId, row.getDate("sales_day").toLocalDate(),
+                    row.getLong("orders"), row.getLong("units"), row.getBigDecimal("revenue"),
+                    row.getLong("paid_orders"), row.getLong("paid_units"), row.getBigDecimal("paid_revenue"));
+        });
+    }
+
+    @Override
+    public Map<Long, Boolean> findPaidByOrderId(long fromOrderId, long toOrderId) {
+        Map<Long, Boolean> paidByOrderId = new HashMap<>();
+        jdbcTemplate.query(PAID_SQL, Map.of("fromId", fromOrderId, "toId", toOrderId),
+                row -> {
+                    paidByOrderId.put(row.getLong("order_id"), row.getBoolean("paid"));
+                });
+        return paidByOrderId;
+    }
+}
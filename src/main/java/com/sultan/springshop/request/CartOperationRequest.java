@@ -0,0 +1,17 @@
+package com.sultan.springshop.request;
+
+import com.sultan.springshop.enums.CartOperationType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationRequest {
+    private CartOperationType op;
+    private Long productId;
+    // ignored for REMOVE
+    private Integer quantity;
+}
@@ -2,7 +2,6 @@ package com.sultan.springshop.security.config;
 
 import java.util.List;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,11 +36,6 @@ public class ShopConfig {
 
     private static final List<String> SECURED_URLS = List.of("/api/v1/carts/**", "api/v1/cartItems/**");
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
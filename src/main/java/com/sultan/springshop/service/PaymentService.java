@@ -4,11 +4,20 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.exceptions.InvalidOrderTransitionException;
+import com.sultan.springshop.model.Money;
 import com.sultan.springshop.model.Order;
 import com.sultan.springshop.service.order.OrderService;
+
+import java.util.Locale;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class PaymentService {
 
@@ -27,7 +36,8 @@ public class PaymentService {
         Order order = orderService.getOrderById(orderId);
         // You would dynamically create line items based on the order details
         // For simplicity, using a placeholder for now
-        long amountTotal = (long) (order.getTotalAmount().doubleValue() * 100); // Convert to cents
+        // Stripe takes the amount in minor units, which Money already holds exactly
+        Money total = order.getTotalAmount();
 
         SessionCreateParams params = SessionCreateParams.builder()
                 .addPaymentMethodType(SessionCreateParams.PaymentMethodType.CARD)
@@ -39,8 +49,8 @@ public class PaymentService {
                                 .setQuantity(1L)
                                 .setPriceData(
                                         SessionCreateParams.LineItem.PriceData.builder()
-                                                .setCurrency("usd")
-                                                .setUnitAmount(amountTotal)
+                                                .setCurrency(total.currency().getCurrencyCode().toLowerCase(Locale.ROOT))
+                                                .setUnitAmount(total.minorUnits())
                                                 .setProductData(
                                                         SessionCreateParams.LineItem.PriceData.ProductData.builder()
                                                                 .setName("Order #" + order.getOrderId())
@@ -61,11 +71,20 @@ public class PaymentService {
             Session session = Session.retrieve(sessionId);
             String orderId = session.getMetadata().get("orderId");
             if (orderId != null) {
-                orderService.updateOrderStatus(Long.valueOf(orderId), "PAID"); // Assuming a method to update order status
+                markPaid(Long.valueOf(orderId), sessionId);
             }
         } catch (StripeException e) {
             e.printStackTrace();
             // Handle error
         }
     }
+
+    private void markPaid(Long orderId, String sessionId) {
+        try {
+            orderService.updateOrderStatus(orderId, OrderEventType.PAID, sessionId);
+        } catch (InvalidOrderTransitionException e) {
+            // a late or repeated callback for an order that has moved on, for instance been cancelled
+            log.warn("Ignoring payment of order {} from session {}: {}", orderId, sessionId, e.getMessage());
+        }
+    }
 }
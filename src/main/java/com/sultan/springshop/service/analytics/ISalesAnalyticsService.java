@@ -0,0 +1,18 @@
+package com.sultan.springshop.service.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.sultan.springshop.dto.DailySalesDto;
+import com.sultan.springshop.dto.SalesBreakdownDto;
+
+public interface ISalesAnalyticsService {
+
+    List<DailySalesDto> getDailySales(LocalDate from, LocalDate to);
+
+    List<SalesBreakdownDto> getTopProducts(LocalDate from, LocalDate to, int limit);
+
+    List<SalesBreakdownDto> getCategorySales(LocalDate from, LocalDate to);
+
+    int rebuildRollups();
+}
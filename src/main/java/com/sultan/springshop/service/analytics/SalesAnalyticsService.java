@@ -0,0 +1,67 @@
+package com.sultan.springshop.service.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sultan.springshop.dto.DailySalesDto;
+import com.sultan.springshop.dto.SalesBreakdownDto;
+import com.sultan.springshop.repository.SalesRollupRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sales reports, read from the rollups only; the order tables are never
+ * scanned at query time.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesAnalyticsService implements ISalesAnalyticsService {
+
+    static final int MAX_TOP_PRODUCTS = 100;
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupWriter salesRollupWriter;
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<DailySalesDto> getDailySales(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return salesRollupRepository.findDailySales(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<SalesBreakdownDto> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        checkRange(from, to);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return salesRollupRepository.findTopProducts(from, to, PageRequest.of(0, Math.min(limit, MAX_TOP_PRODUCTS)));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<SalesBreakdownDto> getCategorySales(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return salesRollupRepository.findCategorySales(from, to);
+    }
+
+    @Override
+    public int rebuildRollups() {
+        return salesRollupWriter.rebuild();
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+}
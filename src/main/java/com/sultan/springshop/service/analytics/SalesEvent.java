@@ -0,0 +1,71 @@
+package com.sultan.springshop.service.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.enums.RollupDimension;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+
+/**
+ * Published when an order is placed and again when it is paid, so the sales
+ * rollups can follow. Both count towards the day the order was placed.
+ */
+public record SalesEvent(Long orderId, LocalDate day, boolean paid, List<SaleLine> lines) {
+
+    public static SalesEvent placed(Order order) {
+        return of(order, false);
+    }
+
+    public static SalesEvent paid(Order order) {
+        return of(order, true);
+    }
+
+    private static SalesEvent of(Order order, boolean paid) {
+        List<SaleLine> lines = new ArrayList<>(order.getOrderItems().size());
+        for (OrderItem item : order.getOrderItems()) {
+            Product product = item.getProduct();
+            long categoryId = product.getCategory() == null ? 0 : product.getCategory().getId();
+            lines.add(new SaleLine(product.getId(), categoryId, item.getQuantity(),
+                    item.getPrice().times(item.getQuantity()).toBigDecimal()));
+        }
+        return new SalesEvent(order.getOrderId(), order.getOrderDate().toLocalDate(), paid, lines);
+    }
+
+    /**
+     * What the order adds to the rollups: one row for the day, and one for
+     * each product and category it contains.
+     */
+    public List<SalesRollupRow> toRows() {
+        Map<SalesRollupRow.Key, SalesRollupRow> rows = new LinkedHashMap<>();
+        for (SaleLine line : lines) {
+            add(rows, RollupDimension.DAY, 0, line);
+            add(rows, RollupDimension.PRODUCT, line.productId(), line);
+            add(rows, RollupDimension.CATEGORY, line.categoryId(), line);
+        }
+        return List.copyOf(rows.values());
+    }
+
+    private void add(Map<SalesRollupRow.Key, SalesRollupRow> rows, RollupDimension dimension, long dimensionId,
+            SaleLine line) {
+        SalesRollupRow.Key key = new SalesRollupRow.Key(dimension, dimensionId, day);
+        SalesRollupRow existing = rows.get(key);
+        // the order itself is counted once per row, however many of its lines fall into it
+        long orders = existing == null ? 1 : 0;
+        SalesRollupRow row = paid
+                ? new SalesRollupRow(dimension, dimensionId, day, 0, 0, BigDecimal.ZERO, orders, line.quantity(),
+                        line.revenue())
+                : new SalesRollupRow(dimension, dimensionId, day, orders, line.quantity(), line.revenue(), 0, 0,
+                        BigDecimal.ZERO);
+        rows.put(key, existing == null ? row : existing.plus(row));
+    }
+
+    public record SaleLine(Long productId, long categoryId, int quantity, BigDecimal revenue) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.sultan.springshop.service.analytics;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.repository.OrderRepository;
+import com.sultan.springshop.repository.SalesRollupRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the sales rollups up to date.
+ *
+ * Committed sales are summed up in memory and written every few seconds as
+ * one batch of upserts, so orders never wait on, or contend for, the hot
+ * rollup row of the current day. Everything runs on a single thread.
+ *
+ * A rebuild recomputes the rollups from the order tables in parallel id
+ * ranges. Each range is read in one repeatable-read transaction that also
+ * notes which of its orders exist and which are paid, so a sale that
+ * transaction already saw is skipped when its event arrives later, and one
+ * committed after it, such as a payment for an old order, still applies.
+ *
+ * Only sales recorded on this node are coordinated with a rebuild. Sales
+ * another node has not flushed yet when the old rollups are deleted, at most
+ * {@code analytics.flush-interval-seconds} worth, are counted twice if the
+ * rebuild already saw them; rebuild while one node serves orders to avoid it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupWriter {
+
+    static final int BACKFILL_CHUNK_SIZE = 10_000;
+    private static final int BACKFILL_THREADS = 4;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${analytics.flush-interval-seconds:5}")
+    private long flushIntervalSeconds;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sales-rollup-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // only touched from the executor thread
+    private Map<SalesRollupRow.Key, SalesRollupRow> pending = new HashMap<>();
+    private Backfill lastBackfill;
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.execute(this::flush);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSales(SalesEvent event) {
+        executor.execute(() -> record(event));
+    }
+
+    /**
+     * Replaces the rollups with totals computed from all orders and returns
+     * the number of rollup rows written. Blocks until done.
+     */
+    public int rebuild() {
+        try {
+            return executor.submit(this::backfill).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding sales rollups", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rebuilding sales rollups failed", e.getCause());
+        }
+    }
+
+    void record(SalesEvent event) {
+        if (lastBackfill != null && lastBackfill.covers(event)) {
+            return;
+        }
+        for (SalesRollupRow row : event.toRows()) {
+            pending.merge(row.key(), row, SalesRollupRow::plus);
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<SalesRollupRow.Key, SalesRollupRow> batch = pending;
+        pending = new HashMap<>();
+        try {
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> salesRollupRepository.addAll(batch.values()));
+        } catch (RuntimeException e) {
+            // keep the sales for the next flush
+            batch.forEach((key, row) -> pending.merge(key, row, SalesRollupRow::plus));
+            log.error("Writing {} sales rollup rows failed, retrying with the next flush", batch.size(), e);
+        }
+    }
+
+    int backfill() {
+        // everything pending was committed before the ranges below are read, so the rebuild counts it
+        pending = new HashMap<>();
+        Long maxOrderId = orderRepository.findMaxOrderId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> salesRollupRepository.deleteAllInBatch());
+        // both reads of a range must see the same committed orders
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setReadOnly(true);
+
+        Map<Long, Seen> seenByChunk = new ConcurrentHashMap<>();
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        ExecutorService backfillExecutor = Executors.newFixedThreadPool(BACKFILL_THREADS);
+        try {
+            for (long fromId = 1; maxOrderId != null && fromId <= maxOrderId; fromId += BACKFILL_CHUNK_SIZE) {
+                long from = fromId;
+                long to = from + BACKFILL_CHUNK_SIZE - 1;
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    Chunk chunk = snapshot.execute(status -> new Chunk(
+                            Seen.of(from, salesRollupRepository.findPaidByOrderId(from, to)),
+                            salesRollupRepository.aggregateOrders(from, to)));
+                    transaction.executeWithoutResult(status -> salesRollupRepository.addAll(chunk.rows()));
+                    seenByChunk.put(from, chunk.seen());
+                    return chunk.rows().size();
+                }, backfillExecutor));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            backfillExecutor.shutdown();
+        }
+        lastBackfill = new Backfill(seenByChunk);
+        return chunks.stream().mapToInt(CompletableFuture::join).sum();
+    }
+
+    private record Backfill(Map<Long, Seen> seenByChunk) {
+
+        boolean covers(SalesEvent event) {
+            if (event.orderId() == null) {
+                return false;
+            }
+            long chunkStart = (event.orderId() - 1) / BACKFILL_CHUNK_SIZE * BACKFILL_CHUNK_SIZE + 1;
+            Seen seen = seenByChunk.get(chunkStart);
+            int offset = (int) (event.orderId() - chunkStart);
+            return seen != null && (event.paid() ? seen.paid() : seen.placed()).get(offset);
+        }
+    }
+
+    private record Chunk(Seen seen, List<SalesRollupRow> rows) {
+    }
+
+    /**
+     * The orders of one id range a rebuild counted, and those it counted as
+     * paid, as bits at their offset from the start of the range.
+     */
+    private record Seen(BitSet placed, BitSet paid) {
+
+        static Seen of(long start, Map<Long, Boolean> paidByOrderId) {
+            BitSet placed = new BitSet(BACKFILL_CHUNK_SIZE);
+            BitSet paid = new BitSet(BACKFILL_CHUNK_SIZE);
+            paidByOrderId.forEach((orderId, isPaid) -> {
+                placed.set((int) (orderId - start));
+                paid.set((int) (orderId - start), isPaid);
+            });
+            return new Seen(placed, paid);
+        }
+    }
+}
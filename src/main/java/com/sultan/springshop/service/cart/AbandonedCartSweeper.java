@@ -0,0 +1,121 @@
+package com.sultan.springshop.service.cart;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.CartSweepRepository.DeletedRows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes carts nobody has touched for {@code carts.sweep.after}, with their
+ * items, so idle accounts do not keep growing {@code cart} and
+ * {@code cart_item}. A user whose cart was swept gets a new one on their next
+ * add.
+ *
+ * Each batch finds its carts through the {@code last_modified} index and
+ * deletes them and their items in one short statement, without loading them,
+ * and the sweeper pauses between batches. Batches skip carts locked elsewhere,
+ * so any number of nodes can sweep at once without waiting on each other or
+ * deleting a cart mid-edit. Rows deleted and batch latency are published as
+ * {@code carts.sweep.*} metrics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AbandonedCartSweeper {
+
+    private final CartRepository cartRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${carts.sweep.after:30d}")
+    private Duration sweepAfter;
+
+    @Value("${carts.sweep.batch-size:500}")
+    private int batchSize;
+
+    @Value("${carts.sweep.pause-millis:200}")
+    private long pauseMillis;
+
+    @Value("${carts.sweep.interval-minutes:60}")
+    private long intervalMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "abandoned-cart-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter deletedCarts;
+    private Counter deletedItems;
+    private Timer batchDuration;
+
+    @PostConstruct
+    public void start() {
+        deletedCarts = Counter.builder("carts.sweep.rows").tag("table", "cart")
+                .description("Rows deleted with abandoned carts").register(meterRegistry);
+        deletedItems = Counter.builder("carts.sweep.rows").tag("table", "cart_item")
+                .description("Rows deleted with abandoned carts").register(meterRegistry);
+        batchDuration = Timer.builder("carts.sweep.batch.duration").register(meterRegistry);
+        executor.scheduleWithFixedDelay(this::sweep, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sweeps batches until one comes back short, and returns the number of
+     * carts deleted.
+     */
+    int sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sweepAfter);
+        int deleted = 0;
+        try {
+            while (true) {
+                int batch = sweepBatch(cutoff);
+                deleted += batch;
+                if (batch < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // the batch rolled back and the next run picks its carts up again
+            log.error("Sweeping carts untouched since {} failed after deleting {}", cutoff, deleted, e);
+        }
+        return deleted;
+    }
+
+    int sweepBatch(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        DeletedRows deleted = new TransactionTemplate(transactionManager)
+                .execute(status -> cartRepository.deleteUntouchedBefore(cutoff, batchSize));
+        batchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (deleted == null) {
+            return 0;
+        }
+        deletedCarts.increment(deleted.carts());
+        deletedItems.increment(deleted.items());
+        return deleted.carts();
+    }
+}
@@ -1,15 +1,25 @@
 package com.sultan.springshop.service.cart;
 
-import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.sultan.springshop.enums.CartOperationType;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.ProductMapper;
 import com.sultan.springshop.model.Cart;
 import com.sultan.springshop.model.CartItem;
 import com.sultan.springshop.model.Product;
 import com.sultan.springshop.repository.CartItemRepository;
 import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.request.CartOperationRequest;
 import com.sultan.springshop.service.product.IProductService;
 
 import lombok.RequiredArgsConstructor;
@@ -20,9 +30,17 @@ public class CartItemService implements ICartItemService {
 
     private final CartItemRepository cartItemRepository;
     private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
     private final IProductService productService;
     private final ICartService cartService;
+    private final CartWriteBehindStore cartWriteBehindStore;
+    private final ProductMapper productMapper;
 
+    // debug: checks the incrementally kept cart total against a full recompute after each change
+    @Value("${carts.verify-totals:false}")
+    private boolean verifyTotals;
+
+    @Transactional
     @Override
     public void addItemToCart(Long cartId, Long productId, int quantity) {
         // 1. get the cart
@@ -30,54 +48,113 @@ public class CartItemService implements ICartItemService {
         // 3. check if the product already in the cart
         // 4. if yes, then increase the quantity
         // 5. if no, then initiate a new cartitem entry
-        Cart cart = cartService.getCart(cartId);
-        Product product = productService.getProductById(productId);
-        CartItem cartItem = cart.getItems().stream().filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst().orElse(new CartItem());
-        if (cartItem.getId() == null) {
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(quantity);
-            cartItem.setUnitPrice(product.getPrice());
-        } else {
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
+        Product product = cachedProduct(productId);
+        if (cartWriteBehindStore.isEnabled()) {
+            cartWriteBehindStore.addItem(cartId, product, quantity);
+            return;
         }
-        cartItem.setTotalPrice();
-        cart.addItem(cartItem);
+        Cart cart = cartService.getCartForUpdate(cartId);
+        // the line only needs the product's id to be written, so the row is never read
+        CartItem cartItem = cart.addQuantity(productRepository.getReferenceById(productId), quantity,
+                product.getPrice());
+        verify(cart);
         cartItemRepository.save(cartItem);
         cartRepository.save(cart);
-
     }
 
+    @Transactional
     @Override
     public void removeItemFromCart(Long cartId, Long productId) {
-        Cart cart = cartService.getCart(cartId);
-        CartItem itemToRemove = getCartItem(cartId, productId);
+        if (cartWriteBehindStore.isEnabled()) {
+            cartWriteBehindStore.removeItem(cartId, productId);
+            return;
+        }
+        Cart cart = cartService.getCartForUpdate(cartId);
+        CartItem itemToRemove = cart.findItem(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("item not found"));
         cart.removeItem(itemToRemove);
+        verify(cart);
         cartRepository.save(cart);
     }
 
+    @Transactional
     @Override
     public void updateItemQuantity(Long cartId, Long productId, int quantity) {
-        Cart cart = cartService.getCart(cartId);
-        cart.getItems().stream().filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst().ifPresent(item -> {
-                    item.setQuantity(quantity);
-                    item.setUnitPrice(item.getProduct().getPrice());
-                    item.setTotalPrice();
-                });
-
-        BigDecimal totalAmount = cart.getItems().stream().map(CartItem::getTotalPrice).reduce(BigDecimal.ZERO,
-                BigDecimal::add);
-        cart.setTotalAmount(totalAmount);
+        if (cartWriteBehindStore.isEnabled()) {
+            cartWriteBehindStore.updateQuantity(cartId, cachedProduct(productId), quantity);
+            return;
+        }
+        Cart cart = cartService.getCartForUpdate(cartId);
+        cart.findItem(productId)
+                .ifPresent(item -> cart.updateItem(item, quantity, item.getProduct().getPrice()));
+        verify(cart);
         cartRepository.save(cart);
     }
 
+    /**
+     * Applies the operations in order in one transaction: the cart is locked
+     * and loaded once, and the products of all adds and updates come from one
+     * select. New lines are inserted
+     * as one JDBC batch. Any failing operation rolls back the whole list.
+     */
+    @Transactional
+    @Override
+    public Cart applyOperations(Long cartId, List<CartOperationRequest> operations) {
+        Map<Long, Product> products = loadProducts(operations);
+        if (cartWriteBehindStore.isEnabled()) {
+            cartWriteBehindStore.applyOperations(cartId, operations, products);
+            return cartService.getCart(cartId);
+        }
+        Cart cart = cartService.getCartForUpdate(cartId);
+        for (CartOperationRequest operation : operations) {
+            Long productId = operation.getProductId();
+            switch (operation.getOp()) {
+                case ADD -> cart.addQuantity(products.get(productId), operation.getQuantity());
+                case UPDATE -> cart.findItem(productId).ifPresent(
+                        item -> cart.updateItem(item, operation.getQuantity(), item.getProduct().getPrice()));
+                case REMOVE -> cart.removeItem(cart.findItem(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("item not found")));
+            }
+        }
+        verify(cart);
+        return cart;
+    }
+
+    // checks every operation before anything is changed
+    private Map<Long, Product> loadProducts(List<CartOperationRequest> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No cart operations given");
+        }
+        Set<Long> productIds = new HashSet<>();
+        for (CartOperationRequest operation : operations) {
+            if (operation == null || operation.getOp() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("Each cart operation needs an op and a productId");
+            }
+            if (operation.getOp() != CartOperationType.REMOVE) {
+                if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+                    throw new IllegalArgumentException(
+                            "Quantity must be positive for product " + operation.getProductId());
+                }
+                productIds.add(operation.getProductId());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllWithCategoryByIdIn(productIds)
+                    .forEach(product -> products.put(product.getId(), product));
+        }
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found: " + productId);
+            }
+        }
+        return products;
+    }
+
     @Override
     public CartItem getCartItem(Long cartId, Long productId) {
         Cart cart = cartService.getCart(cartId);
-        return cart.getItems().stream().filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst().orElseThrow(() -> new ResourceNotFoundException("item not found"));
+        return cart.findItem(productId).orElseThrow(() -> new ResourceNotFoundException("item not found"));
     }
 
     @Override
@@ -85,4 +162,15 @@ public class CartItemService implements ICartItemService {
         cartItemRepository.deleteAllByProductId(productId);
     }
 
+    // checked and priced from the product cache instead of a query per edit
+    private Product cachedProduct(Long productId) {
+        return productMapper.toProduct(productService.getProductDtoById(productId));
+    }
+
+    private void verify(Cart cart) {
+        if (verifyTotals) {
+            cart.verifyTotalAmount();
+        }
+    }
+
 }
@@ -3,12 +3,13 @@ package com.sultan.springshop.service.cart;
 import java.math.BigDecimal;
 import java.util.Optional;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.sultan.springshop.dto.CartDto;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.CartMapper;
 import com.sultan.springshop.model.Cart;
 import com.sultan.springshop.model.User;
 import com.sultan.springshop.repository.CartItemRepository;
@@ -23,29 +24,52 @@ public class CartService implements ICartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     // private final AtomicLong cartIdGenerator = new AtomicLong(0);
-    private final ModelMapper modelMapper;
+    private final CartMapper cartMapper;
+    private final CartWriteBehindStore cartWriteBehindStore;
 
+    /**
+     * Loads the cart with its items, products and categories in one query.
+     * Read-only: nothing is snapshotted for dirty checking or flushed. With
+     * the write-behind store on, a cart it holds is served from memory.
+     */
+    @Transactional(readOnly = true)
     @Override
     public Cart getCart(Long id) {
-        Cart cart = cartRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-        BigDecimal totalAmount = cart.getTotalAmount();
-        cart.setTotalAmount(totalAmount);
-        return cartRepository.save(cart);
+        if (cartWriteBehindStore.isEnabled()) {
+            Optional<Cart> pending = cartWriteBehindStore.find(id);
+            if (pending.isPresent()) {
+                return pending.get();
+            }
+        }
+        return cartRepository.findDetailById(id).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+    }
+
+    /**
+     * Locks the cart row for the rest of the caller's transaction and then
+     * loads it like {@link #getCart}, for the paths that change the cart.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public Cart getCartForUpdate(Long id) {
+        cartRepository.lockById(id).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        return cartRepository.findDetailById(id).orElseThrow();
     }
 
     @Transactional
     @Override
     public void clearCart(Long id) {
-        Cart cart = getCart(id);
+        cartWriteBehindStore.evict(id);
+        Cart cart = getCartForUpdate(id);
         cartItemRepository.deleteAllByCartId(id);
-        cart.getItems().clear();
+        cart.clearItems();
         cartRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public BigDecimal getTotalPrice(Long id) {
         Cart cart = getCart(id);
-        return cart.getTotalAmount();
+        return cart.getTotalAmount().toBigDecimal();
     }
 
     @Override
@@ -57,6 +81,11 @@ public class CartService implements ICartService {
         });
     }
 
+    @Override
+    public void flushPendingChanges(Long userId) {
+        cartWriteBehindStore.flushUser(userId);
+    }
+
     @Override
     public Cart getCartByUserId(Long userId) {
         return cartRepository.findByUserId(userId);
@@ -64,7 +93,7 @@ public class CartService implements ICartService {
 
     @Override
     public CartDto convertCarttoCartDto(Cart cart) {
-        return modelMapper.map(cart, CartDto.class);
+        return cartMapper.toDto(cart);
     }
 
 }
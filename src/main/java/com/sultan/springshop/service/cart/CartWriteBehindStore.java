@@ -0,0 +1,497 @@
+package com.sultan.springshop.service.cart;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.request.CartOperationRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional write-behind store for cart edits, switched on with
+ * {@code carts.write-behind.enabled}.
+ *
+ * Edits are applied to an in-memory copy of the cart under one of a fixed
+ * set of striped locks, and the cart is marked dirty. Every
+ * {@code carts.write-behind.flush-interval-millis} the dirty carts are written
+ * in batches, one transaction per batch, so any number of edits to a cart
+ * between two flushes cost one write; a crash loses at most that interval.
+ * Placing an order flushes the user's cart first, in its own transaction and
+ * before the order's opens: a flush holds the flush monitor while it waits
+ * for cart row locks, so it must never be waited for by a transaction that
+ * holds one. Carts are locked in id order.
+ *
+ * At most {@code carts.write-behind.max-carts} carts are held; the least
+ * recently used clean ones are evicted and reloaded on their next edit. Dirty
+ * carts are never evicted, so the store can run over the bound until the
+ * next flush.
+ *
+ * Single node only: the pending edits live in this JVM, so another instance
+ * would neither see them nor notice that its own copy of the cart has gone
+ * stale, and the later flush overwrites the other's edits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartWriteBehindStore {
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${carts.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${carts.write-behind.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${carts.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${carts.write-behind.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${carts.write-behind.lock-stripes:64}")
+    private int lockStripes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // access ordered for LRU eviction; lock order is stripe, then this map's monitor
+    private final LinkedHashMap<Long, CartLines> carts = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Long> cartIdsByUser = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyCarts = ConcurrentHashMap.newKeySet();
+    // one flush at a time, so an older copy of a cart is never written after a newer one
+    private final Object flushMonitor = new Object();
+    private ReentrantLock[] stripes;
+
+    private Counter flushedCarts;
+    private Counter failedFlushes;
+    private Timer flushDuration;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        Gauge.builder("carts.write-behind.dirty", dirtyCarts, Collection::size)
+                .description("Carts with edits not yet written").register(meterRegistry);
+        Gauge.builder("carts.write-behind.size", this, CartWriteBehindStore::size)
+                .description("Carts held in memory").register(meterRegistry);
+        flushedCarts = Counter.builder("carts.write-behind.carts").tag("outcome", "written")
+                .description("Carts written by flushes").register(meterRegistry);
+        failedFlushes = Counter.builder("carts.write-behind.carts").tag("outcome", "failed")
+                .description("Carts written by flushes").register(meterRegistry);
+        flushDuration = Timer.builder("carts.write-behind.flush.duration").register(meterRegistry);
+        executor.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // writes everything still pending before the application goes away
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        if (enabled) {
+            flushAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addItem(Long cartId, Product product, int quantity) {
+        edit(cartId, lines -> addLine(lines.lines, product, quantity));
+    }
+
+    public void updateQuantity(Long cartId, Product product, int quantity) {
+        edit(cartId, lines -> updateLine(lines.lines, product, quantity));
+    }
+
+    public void removeItem(Long cartId, Long productId) {
+        edit(cartId, lines -> removeLine(lines.lines, productId));
+    }
+
+    /**
+     * Applies the operations in order as one edit: if any of them fails, the
+     * cart is left as it was. {@code products} holds the product of every
+     * add and update.
+     */
+    public void applyOperations(Long cartId, List<CartOperationRequest> operations, Map<Long, Product> products) {
+        edit(cartId, lines -> {
+            Map<Long, Line> edited = new LinkedHashMap<>(lines.lines);
+            for (CartOperationRequest operation : operations) {
+                switch (operation.getOp()) {
+                    case ADD -> addLine(edited, products.get(operation.getProductId()), operation.getQuantity());
+                    case UPDATE -> updateLine(edited, products.get(operation.getProductId()), operation.getQuantity());
+                    case REMOVE -> removeLine(edited, operation.getProductId());
+                }
+            }
+            lines.lines.clear();
+            lines.lines.putAll(edited);
+        });
+    }
+
+    /**
+     * Returns the cart as it stands with its pending edits, if the store holds
+     * it. The result is a detached copy.
+     */
+    public Optional<Cart> find(Long cartId) {
+        ReentrantLock lock = stripe(cartId);
+        lock.lock();
+        try {
+            CartLines lines;
+            synchronized (carts) {
+                lines = carts.get(cartId);
+            }
+            return Optional.ofNullable(lines).map(CartLines::toCart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the user's cart now if it has pending edits, in a transaction of
+     * its own, so a reader that starts afterwards sees them.
+     */
+    public void flushUser(Long userId) {
+        Long cartId = enabled ? cartIdsByUser.get(userId) : null;
+        // not only when dirty: a background flush may be writing the cart right now, and this waits for it
+        if (cartId != null) {
+            flush(List.of(cartId));
+        }
+    }
+
+    // drops the cart with any pending edits, for a cart that is being deleted
+    public void evict(Long cartId) {
+        if (!enabled) {
+            return;
+        }
+        ReentrantLock lock = stripe(cartId);
+        lock.lock();
+        try {
+            remove(cartId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void flushAll() {
+        List<Long> pending = new ArrayList<>(dirtyCarts);
+        List<Long> batch = List.of();
+        try {
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                flush(batch);
+            }
+        } catch (RuntimeException e) {
+            // the carts stay dirty and are retried on the next flush
+            log.error("Flushing carts {} failed, {} carts stay dirty", batch, dirtyCarts.size(), e);
+        }
+    }
+
+    void flush(List<Long> cartIds) {
+        synchronized (flushMonitor) {
+            List<Snapshot> snapshots = new ArrayList<>(cartIds.size());
+            for (Long cartId : cartIds) {
+                dirtyCarts.remove(cartId);
+                snapshot(cartId).ifPresent(snapshots::add);
+            }
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            snapshots.sort(Comparator.comparing(Snapshot::cartId));
+            long start = System.nanoTime();
+            Map<Long, Map<Long, CartItem>> written;
+            try {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                // must commit before the caller, for instance an order being placed, reads the cart
+                transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                written = transaction.execute(status -> write(snapshots));
+            } catch (RuntimeException e) {
+                snapshots.forEach(snapshot -> dirtyCarts.add(snapshot.cartId()));
+                failedFlushes.increment(snapshots.size());
+                throw e;
+            } finally {
+                flushDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            flushedCarts.increment(snapshots.size());
+            snapshots.forEach(snapshot -> markWritten(snapshot, written.get(snapshot.cartId())));
+        }
+    }
+
+    private void edit(Long cartId, Consumer<CartLines> change) {
+        ReentrantLock lock = stripe(cartId);
+        lock.lock();
+        try {
+            CartLines lines;
+            synchronized (carts) {
+                lines = carts.get(cartId);
+            }
+            if (lines == null) {
+                lines = load(cartId);
+                synchronized (carts) {
+                    carts.put(cartId, lines);
+                }
+                if (lines.userId != null) {
+                    cartIdsByUser.put(lines.userId, cartId);
+                }
+            }
+            change.accept(lines);
+            lines.version++;
+            dirtyCarts.add(cartId);
+        } finally {
+            lock.unlock();
+        }
+        trim();
+    }
+
+    private static void addLine(Map<Long, Line> lines, Product product, int quantity) {
+        Line line = lines.get(product.getId());
+        lines.put(product.getId(), line == null ? new Line(null, product, quantity, product.getPrice())
+                : new Line(line.itemId(), line.product(), line.quantity() + quantity, line.unitPrice()));
+    }
+
+    private static void updateLine(Map<Long, Line> lines, Product product, int quantity) {
+        Line line = lines.get(product.getId());
+        if (line != null) {
+            lines.put(product.getId(), new Line(line.itemId(), product, quantity, product.getPrice()));
+        }
+    }
+
+    private static void removeLine(Map<Long, Line> lines, Long productId) {
+        if (lines.remove(productId) == null) {
+            throw new ResourceNotFoundException("item not found");
+        }
+    }
+
+    private CartLines load(Long cartId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        Cart cart = transaction.execute(status -> cartRepository.findDetailById(cartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found")));
+        CartLines lines = new CartLines(cartId, cart.getUser() == null ? null : cart.getUser().getId());
+        for (CartItem item : cart.getItems()) {
+            lines.lines.put(item.getProduct().getId(),
+                    new Line(item.getId(), item.getProduct(), item.getQuantity(), item.getUnitPrice()));
+        }
+        return lines;
+    }
+
+    private Optional<Snapshot> snapshot(Long cartId) {
+        ReentrantLock lock = stripe(cartId);
+        lock.lock();
+        try {
+            CartLines lines;
+            synchronized (carts) {
+                lines = carts.get(cartId);
+            }
+            if (lines == null || lines.version == lines.writtenVersion) {
+                return Optional.empty();
+            }
+            return Optional.of(new Snapshot(cartId, lines.version, List.copyOf(lines.lines.values())));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // brings the stored cart in line with each snapshot; returns the items written, by cart and product
+    private Map<Long, Map<Long, CartItem>> write(List<Snapshot> snapshots) {
+        Set<Long> productIds = new HashSet<>();
+        snapshots.forEach(snapshot -> snapshot.lines().forEach(line -> productIds.add(line.product().getId())));
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+
+        Map<Long, Map<Long, CartItem>> written = new HashMap<>();
+        for (Snapshot snapshot : snapshots) {
+            Optional<Cart> stored = cartRepository.lockById(snapshot.cartId())
+                    .flatMap(locked -> cartRepository.findDetailById(snapshot.cartId()));
+            if (stored.isEmpty()) {
+                continue;
+            }
+            Cart cart = stored.get();
+            Map<Long, CartItem> kept = new HashMap<>();
+            for (Line line : snapshot.lines()) {
+                Long productId = line.product().getId();
+                CartItem item = cart.findItem(productId).orElse(null);
+                if (item == null) {
+                    Product product = products.get(productId);
+                    if (product == null) {
+                        // deleted since it was added; its cart lines went with it
+                        continue;
+                    }
+                    item = cart.addQuantity(product, line.quantity());
+                }
+                cart.updateItem(item, line.quantity(), line.unitPrice());
+                kept.put(productId, item);
+            }
+            for (CartItem item : List.copyOf(cart.getItems())) {
+                if (!kept.containsKey(item.getProduct().getId())) {
+                    cart.removeItem(item);
+                }
+            }
+            written.put(snapshot.cartId(), kept);
+        }
+        return written;
+    }
+
+    private void markWritten(Snapshot snapshot, Map<Long, CartItem> items) {
+        Long cartId = snapshot.cartId();
+        ReentrantLock lock = stripe(cartId);
+        lock.lock();
+        try {
+            CartLines lines;
+            synchronized (carts) {
+                lines = carts.get(cartId);
+            }
+            if (lines == null) {
+                return;
+            }
+            if (items == null) {
+                // the cart is gone from the database, so its edits have nowhere to go
+                remove(cartId);
+                return;
+            }
+            lines.writtenVersion = Math.max(lines.writtenVersion, snapshot.version());
+            // new lines learn the ids of their rows
+            lines.lines.replaceAll((productId, line) -> {
+                CartItem item = items.get(productId);
+                return line.itemId() == null && item != null
+                        ? new Line(item.getId(), line.product(), line.quantity(), line.unitPrice())
+                        : line;
+            });
+            if (lines.version != lines.writtenVersion) {
+                dirtyCarts.add(cartId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // evicts the least recently used clean carts over the bound; carts being edited are skipped
+    private void trim() {
+        synchronized (carts) {
+            Iterator<Map.Entry<Long, CartLines>> eldest = carts.entrySet().iterator();
+            while (carts.size() > maxCarts && eldest.hasNext()) {
+                Map.Entry<Long, CartLines> entry = eldest.next();
+                ReentrantLock lock = stripe(entry.getKey());
+                if (!lock.tryLock()) {
+                    continue;
+                }
+                try {
+                    CartLines lines = entry.getValue();
+                    if (lines.version == lines.writtenVersion) {
+                        eldest.remove();
+                        if (lines.userId != null) {
+                            cartIdsByUser.remove(lines.userId, lines.cartId);
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void remove(Long cartId) {
+        CartLines lines;
+        synchronized (carts) {
+            lines = carts.remove(cartId);
+        }
+        dirtyCarts.remove(cartId);
+        if (lines != null && lines.userId != null) {
+            cartIdsByUser.remove(lines.userId, cartId);
+        }
+    }
+
+    int size() {
+        synchronized (carts) {
+            return carts.size();
+        }
+    }
+
+    private ReentrantLock stripe(Long cartId) {
+        return stripes[Math.floorMod(cartId.hashCode(), stripes.length)];
+    }
+
+    record Line(Long itemId, Product product, int quantity, Money unitPrice) {
+    }
+
+    record Snapshot(Long cartId, long version, List<Line> lines) {
+    }
+
+    // guarded by the cart's stripe lock
+    private static final class CartLines {
+        private final Long cartId;
+        private final Long userId;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private long version;
+        private long writtenVersion;
+
+        CartLines(Long cartId, Long userId) {
+            this.cartId = cartId;
+            this.userId = userId;
+        }
+
+        Cart toCart() {
+            Cart cart = new Cart();
+            cart.setId(cartId);
+            for (Line line : lines.values()) {
+                CartItem item = new CartItem();
+                item.setId(line.itemId());
+                item.setProduct(line.product());
+                item.setQuantity(line.quantity());
+                item.setUnitPrice(line.unitPrice());
+                item.setTotalPrice();
+                item.setCart(cart);
+                cart.getItems().add(item);
+            }
+            cart.updateTotalAmount();
+            return cart;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.sultan.springshop.service.cart;
 
+import java.util.List;
+
+import com.sultan.springshop.model.Cart;
 import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.request.CartOperationRequest;
 
 public interface ICartItemService {
 
@@ -10,6 +14,8 @@ public interface ICartItemService {
 
     void updateItemQuantity(Long cartId, Long productId, int quantity);
 
+    Cart applyOperations(Long cartId, List<CartOperationRequest> operations);
+
     public CartItem getCartItem(Long cartId, Long productId);
 
     void deleteAllByProductId(Long productId);
@@ -10,6 +10,8 @@ public interface ICartService {
 
     Cart getCart(Long id);
 
+    Cart getCartForUpdate(Long id);
+
     void clearCart(Long id);
 
     BigDecimal getTotalPrice(Long id);
@@ -18,5 +20,8 @@ public interface ICartService {
 
     Cart getCartByUserId(Long userId);
 
+    // writes the user's cart edits still held by the write-behind store, before the cart is read for an order
+    void flushPendingChanges(Long userId);
+
     CartDto convertCarttoCartDto(Cart cart);
 }
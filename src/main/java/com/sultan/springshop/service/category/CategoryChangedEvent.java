@@ -0,0 +1,8 @@
+package com.sultan.springshop.service.category;
+
+/**
+ * Published by {@link CategoryService} when a category is renamed or deleted,
+ * so copies of its products held in memory can follow.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -3,6 +3,7 @@ package com.sultan.springshop.service.category;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.sultan.springshop.exceptions.AlreadyExistsException;
@@ -17,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 public class CategoryService implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Category getcategoryById(Long id) {
@@ -42,10 +44,12 @@ public class CategoryService implements ICategoryService {
 
     @Override
     public Category updateCategory(Category category, Long id) {
-        return Optional.ofNullable(getcategoryById(id)).map(oldCategory -> {
+        Category updatedCategory = Optional.ofNullable(getcategoryById(id)).map(oldCategory -> {
             oldCategory.setName(category.getName());
             return categoryRepository.save(oldCategory);
         }).orElseThrow(() -> new ResourceNotFoundException("Category not found!"));
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return updatedCategory;
     }
 
     @Override
@@ -53,6 +57,7 @@ public class CategoryService implements ICategoryService {
         categoryRepository.findById(id).ifPresentOrElse(categoryRepository::delete, () -> {
             throw new ResourceNotFoundException("Category not found!");
         });
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
 }
@@ -0,0 +1,186 @@
+package com.sultan.springshop.service.idempotency;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sultan.springshop.exceptions.IdempotencyKeyInProgressException;
+import com.sultan.springshop.exceptions.IdempotencyKeyReuseException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Remembers the responses of requests sent with an {@code Idempotency-Key}
+ * header, so a client retrying after a timeout gets the original response
+ * back instead of repeating the work.
+ *
+ * Entries live in a Caffeine cache keyed by scope and key: a lookup is one
+ * hash probe and never touches the database. The cache holds at most
+ * {@code idempotency.max-entries} responses; past that the least valuable are
+ * evicted early and their keys run again. A duplicate arriving while the
+ * first request is still running waits up to
+ * {@code idempotency.wait-timeout} for its response and is then told to retry.
+ * Server errors are not kept, so those requests can be retried; everything
+ * else is replayed until the entry expires.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${idempotency.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    private final Ticker ticker;
+
+    private Cache<String, Entry> entries;
+
+    public IdempotencyStore() {
+        this(Ticker.systemTicker());
+    }
+
+    // the clock of both the cache and the entries' own expiry check
+    IdempotencyStore(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    @PostConstruct
+    public void start() {
+        entries = Caffeine.newBuilder().maximumSize(maxEntries).ticker(ticker).expireAfter(new Expiry<String, Entry>() {
+            // running entries never expire; the ttl starts once the response is stored
+            @Override
+            public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                return entry.remainingNanos(currentTime);
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                return entry.remainingNanos(currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        }).build();
+    }
+
+    /**
+     * Runs the request once per key. The fingerprint identifies what the key
+     * was first used for; reusing the key for anything else is rejected.
+     * Without a key the request simply runs.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, String fingerprint,
+            Supplier<ResponseEntity<T>> request) {
+        if (key == null || key.isBlank()) {
+            return request.get();
+        }
+        String storeKey = scope + ':' + key;
+        Entry created = new Entry(fingerprint);
+        while (true) {
+            Entry existing = entries.asMap().putIfAbsent(storeKey, created);
+            if (existing == null) {
+                return run(storeKey, created, request);
+            }
+            if (existing.isExpired(ticker.read())) {
+                entries.asMap().remove(storeKey, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyKeyReuseException(
+                        "Idempotency key " + key + " was already used for a different request");
+            }
+            return replay(existing.await(key, waitTimeout));
+        }
+    }
+
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private <T> ResponseEntity<T> run(String storeKey, Entry entry, Supplier<ResponseEntity<T>> request) {
+        ResponseEntity<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            entries.asMap().remove(storeKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.asMap().remove(storeKey, entry);
+        } else {
+            entry.expiresAt = ticker.read() + ttl.toNanos();
+            entries.policy().expireVariably()
+                    .ifPresent(expiry -> expiry.setExpiresAfter(storeKey, ttl.toNanos(), TimeUnit.NANOSECONDS));
+        }
+        entry.response.complete(response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> replay(ResponseEntity<?> response) {
+        return (ResponseEntity<T>) ResponseEntity.status(response.getStatusCode())
+                .headers(headers -> {
+                    headers.addAll(response.getHeaders());
+                    headers.set(REPLAYED_HEADER, "true");
+                })
+                .body(response.getBody());
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+        // set once the response is known; entries still running never expire
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+
+        long remainingNanos(long now) {
+            return expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, expiresAt - now);
+        }
+
+        ResponseEntity<?> await(String key, Duration timeout) {
+            try {
+                return response.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new IdempotencyKeyInProgressException(
+                        "A request with idempotency key " + key + " is still in progress, retry later");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInProgressException(
+                        "A request with idempotency key " + key + " is still in progress, retry later");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.sultan.springshop.service.image;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.sql.rowset.serial.SerialBlob;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -15,7 +17,9 @@ import com.sultan.springshop.exceptions.ResourceNotFoundException;
 import com.sultan.springshop.model.Image;
 import com.sultan.springshop.model.Product;
 import com.sultan.springshop.repository.ImageRepository;
+import com.sultan.springshop.repository.ProductRepository;
 import com.sultan.springshop.service.product.IProductService;
+import com.sultan.springshop.service.product.ProductChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,6 +29,8 @@ public class ImageService implements IImageService {
 
     private final ImageRepository imageRepository;
     private final IProductService productService;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Image getImageById(Long id) {
@@ -34,7 +40,10 @@ public class ImageService implements IImageService {
 
     @Override
     public void deleteImageById(Long id) {
-        imageRepository.findById(id).ifPresentOrElse(imageRepository::delete, () -> {
+        imageRepository.findById(id).ifPresentOrElse(image -> {
+            imageRepository.delete(image);
+            publishProductChanged(image);
+        }, () -> {
             throw new ResourceNotFoundException("No image found with id: " + id);
         });
     }
@@ -70,6 +79,8 @@ public class ImageService implements IImageService {
             }
         }
 
+        productRepository.touchUpdatedAt(product.getId(), LocalDateTime.now());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
         return savedImageDtos;
     }
 
@@ -81,9 +92,18 @@ public class ImageService implements IImageService {
             image.setFileType(file.getContentType());
             image.setImage(new SerialBlob(file.getBytes()));
             imageRepository.save(image);
+            publishProductChanged(image);
         } catch (IOException | SQLException e) {
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    // the product's image list is part of its cached DTO and of its exported row
+    private void publishProductChanged(Image image) {
+        if (image.getProduct() != null) {
+            productRepository.touchUpdatedAt(image.getProduct().getId(), LocalDateTime.now());
+            eventPublisher.publishEvent(ProductChangedEvent.saved(image.getProduct()));
+        }
+    }
+
 }
@@ -0,0 +1,225 @@
+package com.sultan.springshop.service.order;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sultan.springshop.dto.OrderTicketDto;
+import com.sultan.springshop.enums.OrderTicketStatus;
+import com.sultan.springshop.exceptions.InsufficientStockException;
+import com.sultan.springshop.exceptions.OrderQueueFullException;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.service.cart.ICartService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Places orders off the request thread.
+ *
+ * A request only checks that the user has something in their cart and queues
+ * a ticket. Worker threads take whatever has queued up, up to a batch, and
+ * place it order by order, each order in a transaction of its own.
+ * Clients poll the ticket or wait for its completion. Queue depth, batch
+ * sizes and outcomes are published as {@code orders.async.*} metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class AsyncOrderPipeline {
+
+    private final IOrderService orderService;
+    private final ICartService cartService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${orders.async.workers:4}")
+    private int workers;
+
+    @Value("${orders.async.batch-size:50}")
+    private int batchSize;
+
+    @Value("${orders.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${orders.async.ticket-ttl:1h}")
+    private Duration ticketTtl;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-ticket-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BlockingQueue<Ticket> queue;
+    private ExecutorService workerPool;
+    private volatile boolean running;
+
+    private Counter placedOrders;
+    private Counter failedOrders;
+    private Timer batchDuration;
+    private DistributionSummary batchSizes;
+    private Timer orderLatency;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("orders.async.queue.depth", queue, Collection::size)
+                .description("Orders waiting to be placed").register(meterRegistry);
+        placedOrders = Counter.builder("orders.async.orders").tag("outcome", "placed").register(meterRegistry);
+        failedOrders = Counter.builder("orders.async.orders").tag("outcome", "failed").register(meterRegistry);
+        batchDuration = Timer.builder("orders.async.batch.duration").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("orders.async.batch.size").register(meterRegistry);
+        orderLatency = Timer.builder("orders.async.latency")
+                .description("Time from queueing an order to its outcome").register(meterRegistry);
+
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "order-worker-" + threadNumber.incrementAndGet()));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::drain);
+        }
+        expiry.scheduleWithFixedDelay(this::evictExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    // stops taking orders and lets the workers place what is already queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        expiry.shutdownNow();
+        workerPool.shutdown();
+        workerPool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public OrderTicketDto submit(Long userId) {
+        if (!running) {
+            throw new OrderQueueFullException("Not accepting orders while shutting down");
+        }
+        cartService.flushPendingChanges(userId);
+        Cart cart = cartService.getCartByUserId(userId);
+        if (cart == null || cart.getItems().isEmpty()) {
+            throw new ResourceNotFoundException("No items in cart for user " + userId);
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), userId);
+        // read before offering: the worker may place the order before this method returns
+        OrderTicketDto queued = ticket.state;
+        tickets.put(ticket.id, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            throw new OrderQueueFullException("Too many orders waiting, try again shortly");
+        }
+        return queued;
+    }
+
+    public OrderTicketDto getTicket(String ticketId) {
+        return find(ticketId).state;
+    }
+
+    /**
+     * Completes with the ticket once its order has been placed or has failed.
+     */
+    public CompletableFuture<OrderTicketDto> whenDone(String ticketId) {
+        return find(ticketId).done;
+    }
+
+    private Ticket find(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("Order ticket not found");
+        }
+        return ticket;
+    }
+
+    private void drain() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ticket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        List<Long> userIds = batch.stream().map(ticket -> ticket.userId).toList();
+        long start = System.nanoTime();
+        List<OrderPlacement> placements = orderService.placeOrders(userIds);
+        batchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Ticket ticket = batch.get(i);
+            OrderPlacement placement = placements.get(i);
+            // counted before completing, so whoever sees the ticket done also sees it in the metrics
+            (placement.isPlaced() ? placedOrders : failedOrders).increment();
+            orderLatency.record(System.nanoTime() - ticket.queuedNanos, TimeUnit.NANOSECONDS);
+            ticket.complete(placement);
+        }
+    }
+
+    void evictExpired() {
+        long now = System.nanoTime();
+        tickets.values().removeIf(ticket -> ticket.done.isDone() && now - ticket.completedNanos >= ticketTtl.toNanos());
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final Long userId;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<OrderTicketDto> done = new CompletableFuture<>();
+        private volatile OrderTicketDto state;
+        private volatile long completedNanos;
+
+        Ticket(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+            this.state = new OrderTicketDto(id, userId, OrderTicketStatus.QUEUED, null, null, List.of(),
+                    LocalDateTime.now(), null);
+        }
+
+        void complete(OrderPlacement placement) {
+            if (placement.isPlaced()) {
+                state = new OrderTicketDto(id, userId, OrderTicketStatus.PLACED, placement.order().getOrderId(),
+                        "Item Order success", List.of(), state.queuedAt(), LocalDateTime.now());
+            } else {
+                RuntimeException failure = placement.failure();
+                state = new OrderTicketDto(id, userId, OrderTicketStatus.FAILED, null, failure.getMessage(),
+                        failure instanceof InsufficientStockException e ? e.getShortages() : List.of(),
+                        state.queuedAt(), LocalDateTime.now());
+            }
+            completedNanos = System.nanoTime();
+            done.complete(state);
+        }
+    }
+}
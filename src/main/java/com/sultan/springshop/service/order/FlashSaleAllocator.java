@@ -0,0 +1,188 @@
+package com.sultan.springshop.service.order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.repository.ProductRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stock reservation for flash-sale products.
+ *
+ * Instead of every order taking the product's row lock in its own
+ * transaction, reservations queue in memory and a single thread applies them
+ * every few milliseconds, one transaction and normally one UPDATE per product
+ * for the whole batch. When the batch wants more than is left, the row is
+ * locked and requests are granted in arrival order while stock lasts. Stock
+ * handed back by orders that did not go through is netted into the next batch.
+ *
+ * An order waits for its reservation at most
+ * {@code flash-sale.reservation-timeout-millis}, before it takes any row lock
+ * of its own, and then counts as short of stock. Stock waiting to be handed
+ * back is only held in memory: it is written on shutdown, but a crash loses it,
+ * which leaves the product under-counted rather than oversold.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlashSaleAllocator {
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${flash-sale.batch-interval-millis:5}")
+    private long batchIntervalMillis;
+
+    @Value("${flash-sale.reservation-timeout-millis:500}")
+    private long reservationTimeoutMillis;
+
+    private final Map<Long, Queue<Reservation>> pendingReservations = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pendingReleases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flash-sale-allocator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flush, batchIntervalMillis, batchIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // hands back stock still pending before the application goes away
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Queues a reservation for the next batch. The future completes with
+     * whether the stock was granted.
+     */
+    public CompletableFuture<Boolean> reserve(Long productId, int quantity) {
+        Reservation reservation = new Reservation(quantity, new CompletableFuture<>());
+        pendingReservations.computeIfAbsent(productId, id -> new ConcurrentLinkedQueue<>()).add(reservation);
+        return reservation.result();
+    }
+
+    /**
+     * Waits for a reservation. A reservation that times out counts as not
+     * granted; if its batch grants it afterwards, the stock is handed back.
+     */
+    public boolean await(CompletableFuture<Boolean> reservation) {
+        try {
+            return reservation.get(reservationTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return !reservation.completeExceptionally(e) && reservation.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return !reservation.completeExceptionally(e) && reservation.join();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Flash sale reservation failed", e.getCause());
+        }
+    }
+
+    public void release(Long productId, int quantity) {
+        pendingReleases.merge(productId, quantity, Integer::sum);
+    }
+
+    /**
+     * Hands the reserved stock back unless the current transaction commits,
+     * since it was taken outside that transaction.
+     */
+    public void releaseUnlessCommitted(Map<Long, Integer> reserved) {
+        if (reserved.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reserved.forEach(FlashSaleAllocator.this::release);
+                }
+            }
+        });
+    }
+
+    void flush() {
+        Set<Long> productIds = new HashSet<>(pendingReservations.keySet());
+        productIds.addAll(pendingReleases.keySet());
+        for (Long productId : productIds) {
+            List<Reservation> batch = new ArrayList<>();
+            Queue<Reservation> queue = pendingReservations.get(productId);
+            Reservation reservation;
+            while (queue != null && (reservation = queue.poll()) != null) {
+                batch.add(reservation);
+            }
+            Integer released = pendingReleases.remove(productId);
+            if (batch.isEmpty() && released == null) {
+                continue;
+            }
+            try {
+                apply(productId, batch, released == null ? 0 : released);
+            } catch (RuntimeException e) {
+                if (released != null) {
+                    release(productId, released);
+                }
+                batch.forEach(failed -> failed.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void apply(Long productId, List<Reservation> batch, int released) {
+        int requested = batch.stream().mapToInt(Reservation::quantity).sum();
+        boolean[] granted = new boolean[batch.size()];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (productRepository.decrementInventory(Map.of(productId, requested - released)).isEmpty()) {
+                Arrays.fill(granted, true);
+                return;
+            }
+            Integer inventory = productRepository.findInventoryForUpdate(productId);
+            if (inventory == null) {
+                return;
+            }
+            int available = inventory + released;
+            int taken = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).quantity() <= available - taken) {
+                    granted[i] = true;
+                    taken += batch.get(i).quantity();
+                }
+            }
+            productRepository.decrementInventory(Map.of(productId, taken - released));
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            // a requester that gave up waiting no longer wants what it was granted
+            if (!batch.get(i).result().complete(granted[i]) && granted[i]) {
+                release(productId, batch.get(i).quantity());
+            }
+        }
+    }
+
+    private record Reservation(int quantity, CompletableFuture<Boolean> result) {
+    }
+}
@@ -3,15 +3,27 @@ package com.sultan.springshop.service.order;
 import java.util.List;
 
 import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderEventDto;
+import com.sultan.springshop.dto.OrderPageDto;
+import com.sultan.springshop.dto.OrderStateDto;
+import com.sultan.springshop.enums.OrderEventType;
 import com.sultan.springshop.model.Order;
 
 public interface IOrderService {
 
     Order placeOrder(Long userId);
 
+    List<OrderPlacement> placeOrders(List<Long> userIds);
+
     OrderDto getOrder(Long orderId);
 
-    List<OrderDto> getUserOrders(Long userId);
+    OrderPageDto getUserOrderHistory(Long userId, String cursor, int size);
 
     OrderDto converToDto(Order order);
+
+    OrderStateDto updateOrderStatus(Long orderId, OrderEventType event, String detail);
+
+    OrderStateDto getOrderState(Long orderId);
+
+    List<OrderEventDto> getOrderHistory(Long orderId);
 }
@@ -0,0 +1,125 @@
+package com.sultan.springshop.service.order;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.ArchivedOrderWriteRepository.MovedRows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves cold orders out of {@code orders} and {@code order_item} into their
+ * archive tables, so the hot tables and their indexes stay small.
+ *
+ * An order is cold once it is older than {@code orders.archive.after} and in
+ * one of {@code orders.archive.statuses}, which default to the statuses no
+ * further event can leave but a refund. Each batch moves its orders with their
+ * items in one short transaction, and the archiver pauses between batches so a
+ * large backlog does not crowd out order traffic. Reads through
+ * {@link OrderService} look in both places. Rows and items moved and batch
+ * latency are published as {@code orders.archive.*} metrics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderArchiver {
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${orders.archive.after:365d}")
+    private Duration archiveAfter;
+
+    @Value("${orders.archive.statuses:DELIVERED,CANCELLED,REFUNDED}")
+    private Set<OrderStatus> statuses;
+
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.archive.pause-millis:200}")
+    private long pauseMillis;
+
+    @Value("${orders.archive.interval-minutes:60}")
+    private long intervalMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter archivedOrders;
+    private Counter archivedItems;
+    private Timer batchDuration;
+
+    @PostConstruct
+    public void start() {
+        archivedOrders = Counter.builder("orders.archive.rows").tag("table", "orders")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+        archivedItems = Counter.builder("orders.archive.rows").tag("table", "order_item")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+        batchDuration = Timer.builder("orders.archive.batch.duration").register(meterRegistry);
+        executor.scheduleWithFixedDelay(this::archive, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Archives batches until one comes back short, and returns the number of
+     * orders moved.
+     */
+    int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        int moved = 0;
+        try {
+            while (true) {
+                int batch = archiveBatch(cutoff);
+                moved += batch;
+                if (batch < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // the batch rolled back and the next run picks its orders up again
+            log.error("Archiving orders placed before {} failed after moving {}", cutoff, moved, e);
+        }
+        return moved;
+    }
+
+    int archiveBatch(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        MovedRows moved = new TransactionTemplate(transactionManager)
+                .execute(status -> archivedOrderRepository.moveOrdersBefore(cutoff, statuses, batchSize));
+        batchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (moved == null) {
+            return 0;
+        }
+        archivedOrders.increment(moved.orders());
+        archivedItems.increment(moved.items());
+        return moved.orders();
+    }
+}
@@ -0,0 +1,34 @@
+package com.sultan.springshop.service.order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.sultan.springshop.dto.OrderSummaryDto;
+
+/**
+ * Opaque keyset cursor over a user's orders, newest first: the date and id of
+ * the last order on a page.
+ */
+record OrderCursor(LocalDateTime lastOrderDate, Long lastOrderId) {
+
+    static OrderCursor after(OrderSummaryDto order) {
+        return new OrderCursor(order.orderDate(), order.orderId());
+    }
+
+    static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = lastOrderDate + "|" + lastOrderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+package com.sultan.springshop.service.order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.model.ArchivedOrder;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderEvent;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.OrderEventRepository;
+import com.sultan.springshop.repository.OrderRepository;
+import com.sultan.springshop.repository.OrderSnapshotRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The append-only event log behind an order's status.
+ *
+ * Each status change is appended with the next sequence number of its order,
+ * after {@link OrderState} has checked the transition. Every
+ * {@code orders.events.snapshot-every} events the state is saved as a
+ * snapshot, so rebuilding an order reads its snapshot and only the events
+ * after it. The status columns of {@code orders} are kept in step for the
+ * queries that filter on them, and each new state is published for
+ * {@link OrderStateProjection}. The log outlives archiving, so archived
+ * orders keep their state and history.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderLifecycle {
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderSnapshotRepository orderSnapshotRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.events.snapshot-every:5}")
+    private int snapshotEvery;
+
+    /**
+     * Starts the log of a newly saved order, whose stock has already been
+     * reserved.
+     */
+    public OrderState placed(Order order) {
+        LocalDateTime now = LocalDateTime.now();
+        OrderState state = OrderState.initial(order.getOrderId());
+        List<OrderEvent> events = new ArrayList<>(2);
+        for (OrderEventType type : List.of(OrderEventType.PLACED, OrderEventType.RESERVED)) {
+            state = state.apply(type, now);
+            events.add(new OrderEvent(order.getOrderId(), state.sequence(), type, state.status(), null, now));
+        }
+        orderEventRepository.saveAll(events);
+        return updated(order, state);
+    }
+
+    /**
+     * Appends one event to the order's log, on top of its current state. The
+     * caller must hold the lock on the order row, which keeps concurrent
+     * changes to one order in line.
+     */
+    OrderState append(Order order, OrderState current, OrderEventType type, String detail) {
+        OrderState next = current.apply(type, LocalDateTime.now());
+        orderEventRepository.save(
+                new OrderEvent(order.getOrderId(), next.sequence(), type, next.status(), detail, next.updatedAt()));
+        if (next.sequence() % snapshotEvery == 0) {
+            orderSnapshotRepository.save(next.toSnapshot());
+        }
+        return updated(order, next);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderState load(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .or(() -> archivedOrderRepository.findById(orderId).map(ArchivedOrder::toOrder))
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
+        return current(order);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderEvent> history(Long orderId) {
+        if (!orderRepository.existsById(orderId) && !archivedOrderRepository.existsById(orderId)) {
+            throw new ResourceNotFoundException("Order not found with ID: " + orderId);
+        }
+        return orderEventRepository.findByOrderIdOrderBySequence(orderId);
+    }
+
+    /**
+     * Brings a state read earlier up to date with the events appended since,
+     * on any node. Usually there are none, and the read touches only the
+     * (order, sequence) index.
+     */
+    public OrderState catchUp(OrderState state) {
+        OrderState current = state;
+        for (OrderEvent event : orderEventRepository
+                .findByOrderIdAndSequenceGreaterThanOrderBySequence(state.orderId(), state.sequence())) {
+            current = current.replay(event);
+        }
+        return current;
+    }
+
+    // the latest snapshot plus the events after it
+    OrderState current(Order order) {
+        Long orderId = order.getOrderId();
+        OrderState state = orderSnapshotRepository.findById(orderId).map(OrderState::of)
+                .orElseGet(() -> OrderState.initial(orderId));
+        List<OrderEvent> events = orderEventRepository.findByOrderIdAndSequenceGreaterThanOrderBySequence(orderId,
+                state.sequence());
+        if (state.sequence() == 0 && events.isEmpty()) {
+            // placed before the log existed, when payment only set payment_status
+            OrderStatus status = order.getOrderStatus() == OrderStatus.PENDING
+                    && OrderStatus.PAID.paymentStatus().equals(order.getPaymentStatus()) ? OrderStatus.PAID
+                            : order.getOrderStatus();
+            return new OrderState(orderId, status, 0, order.getOrderDate());
+        }
+        for (OrderEvent event : events) {
+            state = state.replay(event);
+        }
+        return state;
+    }
+
+    private OrderState updated(Order order, OrderState state) {
+        order.setOrderStatus(state.status());
+        order.setPaymentStatus(state.status().paymentStatus());
+        eventPublisher.publishEvent(state);
+        return state;
+    }
+}
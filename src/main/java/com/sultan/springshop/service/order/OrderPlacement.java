@@ -0,0 +1,21 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.model.Order;
+
+/**
+ * The outcome of one order in a batch: the placed order, or why it was not placed.
+ */
+public record OrderPlacement(Order order, RuntimeException failure) {
+
+    public static OrderPlacement placed(Order order) {
+        return new OrderPlacement(order, null);
+    }
+
+    public static OrderPlacement failed(RuntimeException failure) {
+        return new OrderPlacement(null, failure);
+    }
+
+    public boolean isPlaced() {
+        return failure == null;
+    }
+}
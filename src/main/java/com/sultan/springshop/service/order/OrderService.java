@@ -1,24 +1,49 @@
 package com.sultan.springshop.service.order;
 
-import java.math.BigDecimal;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
 import java.time.LocalDateTime;
 
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderEventDto;
+import com.sultan.springshop.dto.OrderPageDto;
+import com.sultan.springshop.dto.OrderStateDto;
+import com.sultan.springshop.dto.OrderSummaryDto;
+import com.sultan.springshop.enums.OrderEventType;
 import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.exceptions.InsufficientStockException;
+import com.sultan.springshop.exceptions.InsufficientStockException.StockShortage;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.OrderMapper;
+import com.sultan.springshop.model.ArchivedOrder;
 import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Money;
 import com.sultan.springshop.model.Order;
 import com.sultan.springshop.model.OrderItem;
 import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
 import com.sultan.springshop.repository.OrderRepository;
 import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.analytics.SalesEvent;
 import com.sultan.springshop.service.cart.ICartService;
+import com.sultan.springshop.service.outbox.OutboxWriter;
+import com.sultan.springshop.service.product.ProductChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,19 +51,67 @@ import lombok.RequiredArgsConstructor;
 @Service
 public class OrderService implements IOrderService {
 
+    static final int MAX_PAGE_SIZE = 100;
+    static final String ORDER_AGGREGATE = "Order";
+    static final String ORDER_PLACED = "OrderPlaced";
+    static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+    private static final Comparator<OrderSummaryDto> NEWEST_SUMMARY_FIRST = Comparator
+            .comparing(OrderSummaryDto::orderDate, Comparator.nullsFirst(Comparator.reverseOrder()))
+            .thenComparing(OrderSummaryDto::orderId, Comparator.reverseOrder());
+
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
     private final ProductRepository productRepository;
     private final ICartService cartService;
-    private final ModelMapper modelMapper;
+    private final OrderMapper orderMapper;
+    private final FlashSaleAllocator flashSaleAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxWriter outboxWriter;
+    private final OrderLifecycle orderLifecycle;
+    private final OrderStateProjection orderStateProjection;
+    private final PlatformTransactionManager transactionManager;
 
+    // pending cart edits are written before the order's transaction opens, so waiting for a
+    // background cart flush never happens while holding a lock that flush may need
     @Override
     public Order placeOrder(Long userId) {
+        cartService.flushPendingChanges(userId);
+        return new TransactionTemplate(transactionManager).execute(status -> place(userId));
+    }
+
+    /**
+     * Places several users' orders, each in a transaction of its own: an order
+     * that fails is rolled back whole and reported in its slot, and no order
+     * holds row locks while the next is placed, so each takes its products in
+     * id order without waiting on the rest of the batch.
+     */
+    @Override
+    public List<OrderPlacement> placeOrders(List<Long> userIds) {
+        List<OrderPlacement> placements = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            try {
+                placements.add(OrderPlacement.placed(placeOrder(userId)));
+            } catch (RuntimeException e) {
+                placements.add(OrderPlacement.failed(e));
+            }
+        }
+        return placements;
+    }
+
+    private Order place(Long userId) {
         Cart cart = cartService.getCartByUserId(userId);
+        if (cart == null || cart.getItems().isEmpty()) {
+            throw new ResourceNotFoundException("No items in cart for user " + userId);
+        }
+        reserveInventory(cart);
         Order order = createOrder(cart);
         List<OrderItem> orderItemList = createOrderItems(order, cart);
         order.setOrderItems(new HashSet<>(orderItemList));
         order.setTotalAmount(calculateTotalAmount(orderItemList));
         Order savedOrder = orderRepository.save(order);
+        orderLifecycle.placed(savedOrder);
+        eventPublisher.publishEvent(SalesEvent.placed(savedOrder));
+        outboxWriter.record(ORDER_AGGREGATE, savedOrder.getOrderId(), ORDER_PLACED, orderMapper.toDto(savedOrder));
 
         cartService.clearCart(cart.getId());
 
@@ -48,48 +121,190 @@ public class OrderService implements IOrderService {
     private Order createOrder(Cart cart) {
         Order order = new Order();
         order.setUser(cart.getUser());
-        order.setOrderStatus(OrderStatus.PENDING);
+        // the state the placement events end in, so starting the log does not update the row again
+        order.setOrderStatus(OrderStatus.RESERVED);
         order.setOrderDate(LocalDateTime.now());
-        order.setPaymentStatus("PENDING"); // Initial payment status
+        order.setPaymentStatus(OrderStatus.RESERVED.paymentStatus());
         return order;
     }
 
+    /**
+     * Takes every cart line off stock with conditional updates, so concurrent
+     * orders can never sell more than is left. Flash-sale products go through
+     * the allocator's batches instead of each order locking their rows; their
+     * bounded wait comes before the order's own updates, so it holds no row
+     * lock of this order. If any line is short, the order fails: rolling back
+     * its transaction returns the regular stock it took, and its flash-sale
+     * reservations are released here since the allocator is not transactional.
+     */
+    private void reserveInventory(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Product> products = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            products.put(item.getProduct().getId(), item.getProduct());
+        }
+        Map<Long, Integer> regularQuantities = new HashMap<>(quantities);
+        Map<Long, CompletableFuture<Boolean>> flashSaleReservations = new HashMap<>();
+        for (Product product : products.values()) {
+            if (product.isFlashSale()) {
+                regularQuantities.remove(product.getId());
+                flashSaleReservations.put(product.getId(),
+                        flashSaleAllocator.reserve(product.getId(), quantities.get(product.getId())));
+            }
+        }
+        Set<Long> insufficient = new HashSet<>();
+        Map<Long, Integer> flashSaleReserved = new HashMap<>();
+        flashSaleReservations.forEach((productId, reservation) -> {
+            if (flashSaleAllocator.await(reservation)) {
+                flashSaleReserved.put(productId, quantities.get(productId));
+            } else {
+                insufficient.add(productId);
+            }
+        });
+        insufficient.addAll(productRepository.decrementInventory(regularQuantities));
+        if (!insufficient.isEmpty()) {
+            flashSaleReserved.forEach(flashSaleAllocator::release);
+            Map<Long, Integer> available = productRepository.findInventoryByIds(insufficient);
+            throw new InsufficientStockException(insufficient.stream().sorted()
+                    .map(id -> new StockShortage(id, products.get(id).getName(), quantities.get(id),
+                            available.getOrDefault(id, 0)))
+                    .toList());
+        }
+        flashSaleAllocator.releaseUnlessCommitted(flashSaleReserved);
+        products.values().forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+    }
+
     private List<OrderItem> createOrderItems(Order order, Cart cart) {
-        return cart.getItems().stream().map(cartItem -> {
-            Product product = cartItem.getProduct();
-            product.setInventory(product.getInventory() - cartItem.getQuantity());
-            productRepository.save(product);
-            return new OrderItem(order, product, cartItem.getQuantity(), cartItem.getUnitPrice());
-        }).toList();
+        return cart.getItems().stream()
+                .map(cartItem -> new OrderItem(order, cartItem.getProduct(), cartItem.getQuantity(),
+                        cartItem.getUnitPrice()))
+                .toList();
     }
 
-    private BigDecimal calculateTotalAmount(List<OrderItem> orderItemList) {
-        return orderItemList.stream().map(item -> item.getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Money calculateTotalAmount(List<OrderItem> orderItemList) {
+        long total = 0;
+        for (OrderItem item : orderItemList) {
+            total = Math.addExact(total, Math.multiplyExact(item.getPrice().minorUnits(), item.getQuantity()));
+        }
+        return Money.ofMinor(total);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public OrderDto getOrder(Long orderId) {
-        return orderRepository.findById(orderId).map(this::converToDto)
+        // hot first: the archiver only moves orders the other way, so an order moved
+        // between the two reads is still found in the archive
+        return orderRepository.findDetailById(orderId).map(this::converToDto)
+                .or(() -> archivedOrderRepository.findDetailById(orderId).map(ArchivedOrder::toOrder)
+                        .map(this::converToDto))
                 .orElseThrow(() -> new ResourceNotFoundException("No order found"));
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public List<OrderDto> getUserOrders(Long userId) {
-        List<Order> orders = orderRepository.findByUserId(userId);
-        return orders.stream().map(this::converToDto).toList();
+    public OrderPageDto getUserOrderHistory(Long userId, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        // fetch one extra row to learn whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+        List<OrderSummaryDto> hot = after == null
+                ? orderRepository.findSummariesByUserId(userId, limit)
+                : orderRepository.findSummariesByUserIdBefore(userId, after.lastOrderDate(), after.lastOrderId(),
+                        limit);
+        List<OrderSummaryDto> archived = after == null
+                ? archivedOrderRepository.findSummariesByUserId(userId, limit)
+                : archivedOrderRepository.findSummariesByUserIdBefore(userId, after.lastOrderDate(),
+                        after.lastOrderId(), limit);
+        List<OrderSummaryDto> orders = merge(hot, archived, pageSize + 1);
+
+        boolean hasNext = orders.size() > pageSize;
+        List<OrderSummaryDto> page = hasNext ? orders.subList(0, pageSize) : orders;
+        String nextCursor = hasNext ? OrderCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new OrderPageDto(page, nextCursor, hasNext);
+    }
+
+    // both sides come newest first and hold the first rows after the cursor, so their merge does too
+    private static List<OrderSummaryDto> merge(List<OrderSummaryDto> hot, List<OrderSummaryDto> archived,
+            int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        Set<Long> seen = new HashSet<>();
+        List<OrderSummaryDto> merged = new ArrayList<>(hot.size() + archived.size());
+        for (OrderSummaryDto order : hot) {
+            seen.add(order.orderId());
+            merged.add(order);
+        }
+        for (OrderSummaryDto order : archived) {
+            if (seen.add(order.orderId())) {
+                merged.add(order);
+            }
+        }
+        merged.sort(NEWEST_SUMMARY_FIRST);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
     }
 
     @Override
     public OrderDto converToDto(Order order) {
-        return modelMapper.map(order, OrderDto.class);
+        return orderMapper.toDto(order);
     }
 
-    public void updateOrderStatus(Long orderId, String newStatus) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
-        order.setPaymentStatus(newStatus);
-        orderRepository.save(order);
+    /**
+     * Moves an order along its lifecycle by appending an event to its log.
+     * Repeating the event that led to the current status changes nothing, so
+     * a redelivered payment callback is harmless. Cancelling puts the stock
+     * back. An archived order, such as a delivered one being refunded, is
+     * moved back to the live tables first; the archiver takes it again later.
+     */
+    @Transactional
+    @Override
+    public OrderStateDto updateOrderStatus(Long orderId, OrderEventType event, String detail) {
+        if (orderRepository.lockById(orderId).isEmpty()) {
+            // a concurrent caller may have restored it first, so look again either way
+            archivedOrderRepository.restoreOrder(orderId);
+            orderRepository.lockById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
+        }
+        Order order = orderRepository.findDetailById(orderId).orElseThrow();
+        OrderState current = orderLifecycle.current(order);
+        if (current.status() == event.targetStatus()) {
+            return current.toDto();
+        }
+        OrderState next = orderLifecycle.append(order, current, event, detail);
+        if (event == OrderEventType.PAID) {
+            eventPublisher.publishEvent(SalesEvent.paid(order));
+        } else if (event == OrderEventType.CANCELLED) {
+            restock(order);
+        }
+        outboxWriter.record(ORDER_AGGREGATE, orderId, ORDER_STATUS_CHANGED, orderMapper.toDto(order));
+        return next.toDto();
+    }
+
+    @Override
+    public OrderStateDto getOrderState(Long orderId) {
+        return orderStateProjection.get(orderId).toDto();
+    }
+
+    @Override
+    public List<OrderEventDto> getOrderHistory(Long orderId) {
+        return orderLifecycle.history(orderId).stream().map(event -> new OrderEventDto(event.getSequence(),
+                event.getType(), event.getStatus(), event.getDetail(), event.getOccurredAt())).toList();
+    }
+
+    private void restock(Order order) {
+        Map<Long, Integer> returned = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            returned.merge(item.getProduct().getId(), -item.getQuantity(), Integer::sum);
+        }
+        if (!returned.isEmpty()) {
+            productRepository.decrementInventory(returned);
+        }
+        order.getOrderItems()
+                .forEach(item -> eventPublisher.publishEvent(ProductChangedEvent.saved(item.getProduct())));
     }
 
     public Order getOrderById(Long orderId) {
@@ -0,0 +1,53 @@
+package com.sultan.springshop.service.order;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.dto.OrderStateDto;
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.exceptions.InvalidOrderTransitionException;
+import com.sultan.springshop.model.OrderEvent;
+import com.sultan.springshop.model.OrderSnapshot;
+
+/**
+ * An order's state after the first {@code sequence} events of its log. A
+ * null status means nothing has happened yet.
+ */
+public record OrderState(Long orderId, OrderStatus status, int sequence, LocalDateTime updatedAt) {
+
+    static OrderState initial(Long orderId) {
+        return new OrderState(orderId, null, 0, null);
+    }
+
+    static OrderState of(OrderSnapshot snapshot) {
+        return new OrderState(snapshot.getOrderId(), snapshot.getStatus(), snapshot.getSequence(),
+                snapshot.getUpdatedAt());
+    }
+
+    /**
+     * The state after a new event, if the status machine allows it.
+     */
+    OrderState apply(OrderEventType type, LocalDateTime at) {
+        OrderStatus next = type.targetStatus();
+        boolean allowed = status == null ? type == OrderEventType.PLACED : status.canTransitionTo(next);
+        if (!allowed) {
+            throw new InvalidOrderTransitionException(
+                    "Order " + orderId + " cannot go from " + (status == null ? "nothing" : status) + " to " + next);
+        }
+        return new OrderState(orderId, next, sequence + 1, at);
+    }
+
+    // events in the log were checked when they were appended
+    OrderState replay(OrderEvent event) {
+        return new OrderState(orderId, event.getStatus(), event.getSequence(), event.getOccurredAt());
+    }
+
+    OrderSnapshot toSnapshot() {
+        return new OrderSnapshot(orderId, sequence, status, updatedAt);
+    }
+
+    public OrderStateDto toDto() {
+        return new OrderStateDto(orderId, status, status == null ? null : status.paymentStatus(), sequence,
+                updatedAt);
+    }
+}
@@ -0,0 +1,62 @@
+package com.sultan.springshop.service.order;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Current order states kept in memory, so status reads do not replay the
+ * event log. States are put in as their transactions commit; an order not
+ * seen yet, or evicted as least recently used, is rebuilt from its snapshot
+ * and log once.
+ *
+ * Other nodes change orders too, so a read never trusts a held state alone:
+ * it also reads the events appended after that state's sequence and applies
+ * them. That is one indexed query, normally returning nothing, instead of a
+ * snapshot load and replay.
+ */
+@Component
+public class OrderStateProjection {
+
+    private final OrderLifecycle orderLifecycle;
+    private final Map<Long, OrderState> states;
+
+    public OrderStateProjection(OrderLifecycle orderLifecycle,
+            @Value("${orders.projection.max-entries:100000}") int maxEntries) {
+        this.orderLifecycle = orderLifecycle;
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OrderState> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStateChanged(OrderState state) {
+        put(state);
+    }
+
+    public OrderState get(Long orderId) {
+        OrderState held;
+        synchronized (states) {
+            held = states.get(orderId);
+        }
+        if (held == null) {
+            return put(orderLifecycle.load(orderId));
+        }
+        OrderState current = orderLifecycle.catchUp(held);
+        return current == held ? held : put(current);
+    }
+
+    // a rebuild racing a commit must not replace a newer state with an older one
+    private OrderState put(OrderState state) {
+        synchronized (states) {
+            return states.merge(state.orderId(), state,
+                    (current, candidate) -> candidate.sequence() >= current.sequence() ? candidate : current);
+        }
+    }
+}
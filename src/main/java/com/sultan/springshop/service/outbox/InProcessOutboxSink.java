@@ -0,0 +1,27 @@
+package com.sultan.springshop.service.outbox;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes each message as an application event, for listeners in this
+ * process. Listeners run on the relay thread, and one that throws gets the
+ * batch again.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        messages.forEach(eventPublisher::publishEvent);
+    }
+}
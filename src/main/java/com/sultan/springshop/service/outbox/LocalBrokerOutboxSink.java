@@ -0,0 +1,55 @@
+package com.sultan.springshop.service.outbox;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stands in for a message broker, with one queue per event type. Like a
+ * broker configured for idempotent producers, it drops messages whose eventId
+ * it has recently accepted, so redelivered batches are not consumed twice.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "local-broker")
+public class LocalBrokerOutboxSink implements OutboxSink {
+
+    private final Map<String, BlockingQueue<OutboxMessage>> topics = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> recentIds;
+
+    public LocalBrokerOutboxSink(@Value("${outbox.local-broker.dedup-window:100000}") int dedupWindow) {
+        this.recentIds = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupWindow;
+            }
+        };
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            synchronized (recentIds) {
+                if (recentIds.putIfAbsent(message.eventId(), Boolean.TRUE) != null) {
+                    continue;
+                }
+            }
+            topic(message.eventType()).add(message);
+        }
+    }
+
+    public OutboxMessage poll(String eventType, long timeout, TimeUnit unit) throws InterruptedException {
+        return topic(eventType).poll(timeout, unit);
+    }
+
+    private BlockingQueue<OutboxMessage> topic(String eventType) {
+        return topics.computeIfAbsent(eventType, type -> new LinkedBlockingQueue<>());
+    }
+}
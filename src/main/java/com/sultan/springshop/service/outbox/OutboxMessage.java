@@ -0,0 +1,18 @@
+package com.sultan.springshop.service.outbox;
+
+import java.time.LocalDateTime;
+
+import com.sultan.springshop.model.OutboxEvent;
+
+/**
+ * An outbox event as handed to a sink. The same event may be delivered more
+ * than once; eventId identifies it across deliveries.
+ */
+public record OutboxMessage(String eventId, String aggregateType, String aggregateId, String eventType,
+        String payload, LocalDateTime createdAt) {
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getEventId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+}
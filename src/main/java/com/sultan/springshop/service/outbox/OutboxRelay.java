@@ -0,0 +1,120 @@
+package com.sultan.springshop.service.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.model.OutboxEvent;
+import com.sultan.springshop.repository.OutboxEventRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves outbox events to the configured sink.
+ *
+ * Each batch is claimed, published and marked in one transaction. The claim
+ * skips rows locked by another relay, so every node can run one. A crash or a
+ * failed commit after publishing leaves the batch unpublished and it is sent
+ * again: delivery is at least once, and consumers deduplicate on eventId.
+ * Events are published in id order within a batch, but batches drained by
+ * different nodes may interleave. While batches come back full the relay
+ * keeps draining, pausing briefly between them so a large backlog does not
+ * hold a connection and the sink busy without a break.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.poll-interval-millis:500}")
+    private long pollIntervalMillis;
+
+    @Value("${outbox.pause-millis:50}")
+    private long pauseMillis;
+
+    @Value("${outbox.retention:7d}")
+    private Duration retention;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Relays batches until one comes back short, so a backlog drains without
+     * waiting for the next poll, and returns the number of events relayed.
+     */
+    int drain() {
+        int relayed = 0;
+        try {
+            int batch;
+            do {
+                if (relayed > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+                batch = relayBatch();
+                relayed += batch;
+            } while (batch == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // the batch stays unpublished and is retried on the next poll
+            log.error("Relaying outbox events failed after relaying {}", relayed, e);
+        }
+        return relayed;
+    }
+
+    int relayBatch() {
+        Integer relayed = new TransactionTemplate(transactionManager).execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.claimBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            outboxSink.publish(batch.stream().map(OutboxMessage::of).toList());
+            outboxEventRepository.markPublished(batch.stream().map(OutboxEvent::getId).toList(),
+                    LocalDateTime.now());
+            return batch.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(
+                    status -> outboxEventRepository.deletePublishedBefore(cutoff));
+        } catch (RuntimeException e) {
+            log.error("Purging outbox events published before {} failed", cutoff, e);
+        }
+    }
+}
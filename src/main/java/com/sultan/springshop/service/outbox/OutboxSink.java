@@ -0,0 +1,13 @@
+package com.sultan.springshop.service.outbox;
+
+import java.util.List;
+
+/**
+ * Where the outbox relay delivers events, chosen with {@code outbox.sink}. A
+ * batch counts as delivered once publish returns; if it throws, the whole
+ * batch is delivered again later.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages);
+}
@@ -0,0 +1,39 @@
+package com.sultan.springshop.service.outbox;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sultan.springshop.model.OutboxEvent;
+import com.sultan.springshop.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Adds an event to the outbox as part of the caller's transaction, so it is
+     * only published if that transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Object aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " payload", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(UUID.randomUUID().toString(), aggregateType,
+                String.valueOf(aggregateId), eventType, json, LocalDateTime.now()));
+    }
+}
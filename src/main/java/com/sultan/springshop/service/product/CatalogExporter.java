@@ -0,0 +1,115 @@
+package com.sultan.springshop.service.product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sultan.springshop.dto.ImageDto;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.enums.ExportFormat;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes the catalog for feed partners, one product per line, while the rows
+ * are still being read from the database cursor. Nothing but the current chunk
+ * of products is held in memory, whatever the size of the catalog.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogExporter {
+
+    static final String CSV_HEADER = "id,name,brand,price,inventory,description,category,updatedAt,imageUrls";
+    private static final String IMAGE_URL_SEPARATOR = "|";
+
+    private final IProductService productService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Exports every product, or only those changed at or after
+     * {@code updatedSince} when it is given. The stream is flushed but left
+     * open for the caller to finish.
+     */
+    public void export(ExportFormat format, LocalDateTime updatedSince, OutputStream outputStream)
+            throws IOException {
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsv(updatedSince, outputStream);
+            } else {
+                writeNdjson(updatedSince, outputStream);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeNdjson(LocalDateTime updatedSince, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // each line ends in its own newline instead of Jackson's space between root values
+            generator.setRootValueSeparator(null);
+            productService.streamProducts(updatedSince, product -> {
+                try {
+                    generator.writeObject(product);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(LocalDateTime updatedSince, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        productService.streamProducts(updatedSince, product -> {
+            try {
+                writer.write(toCsvRow(product));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    static String toCsvRow(ProductDto product) {
+        List<ImageDto> images = product.getImages() == null ? List.of() : product.getImages();
+        String imageUrls = images.stream().map(ImageDto::getDownloadUrl)
+                .collect(Collectors.joining(IMAGE_URL_SEPARATOR));
+        return String.join(",",
+                String.valueOf(product.getId()),
+                csvField(product.getName()),
+                csvField(product.getBrand()),
+                product.getPrice() == null ? "" : product.getPrice().toString(),
+                String.valueOf(product.getInventory()),
+                csvField(product.getDescription()),
+                csvField(product.getCategory() == null ? null : product.getCategory().getName()),
+                product.getUpdatedAt() == null ? "" : product.getUpdatedAt().toString(),
+                csvField(imageUrls));
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, doubling inner quotes
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
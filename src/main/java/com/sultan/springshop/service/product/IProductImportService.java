@@ -0,0 +1,15 @@
+package com.sultan.springshop.service.product;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import com.sultan.springshop.dto.ProductImportResultDto;
+import com.sultan.springshop.request.AddProductRequest;
+
+public interface IProductImportService {
+
+    ProductImportResultDto importProducts(List<AddProductRequest> products);
+
+    ProductImportResultDto importProductsCsv(Reader csv) throws IOException;
+}
@@ -1,8 +1,13 @@
 package com.sultan.springshop.service.product;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.sultan.springshop.dto.FacetCountsDto;
 import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.ProductPageDto;
+import com.sultan.springshop.enums.ProductSort;
 import com.sultan.springshop.model.Product;
 import com.sultan.springshop.request.AddProductRequest;
 import com.sultan.springshop.request.UpdateProductRequest;
@@ -12,11 +17,17 @@ public interface IProductService {
 
     Product getProductById(Long id);
 
+    ProductDto getProductDtoById(Long id);
+
     void deleteProductById(Long id);
 
+    Product setFlashSale(Long productId, boolean enabled);
+
     Product updateProduct(UpdateProductRequest request, Long id);
 
-    List<Product> getAllProducts();
+    ProductPageDto getProductsPage(String cursor, int size, ProductSort sort);
+
+    void streamProducts(LocalDateTime updatedSince, Consumer<ProductDto> consumer);
 
     List<Product> getProductsByCategoryName(String category);
 
@@ -34,5 +45,11 @@ public interface IProductService {
 
     List<ProductDto> getConvertedProducts(List<Product> products);
 
-    List<Product> searchProducts(String keyword);
+    List<Product> searchProducts(String keyword, int page, int size, boolean fuzzy);
+
+    int reindexProducts();
+
+    List<String> suggestProducts(String prefix, int limit);
+
+    FacetCountsDto getFacetCounts(List<String> categories, List<String> brands, List<String> priceRanges);
 }
@@ -0,0 +1,41 @@
+package com.sultan.springshop.service.product;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.sultan.springshop.config.CacheConfig;
+import com.sultan.springshop.service.category.CategoryChangedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evicts a product from the caches once its change is committed. Cached loads
+ * are synchronized per key, so an eviction waits for a load that is still
+ * reading the old row and then removes its result: no stale entry survives.
+ * A renamed or deleted category clears the cache, since every cached product
+ * carries its category.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_DTOS);
+        if (cache != null) {
+            cache.evict(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_DTOS);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
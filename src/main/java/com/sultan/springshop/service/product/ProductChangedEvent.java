@@ -0,0 +1,23 @@
+package com.sultan.springshop.service.product;
+
+import com.sultan.springshop.model.Product;
+
+/**
+ * Published by {@link ProductService} whenever a product is added, updated or
+ * deleted, so in-memory views of the catalog can follow the database.
+ * {@code product} is null for deletions.
+ */
+public record ProductChangedEvent(Long productId, Product product) {
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.sultan.springshop.service.product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.sultan.springshop.enums.ProductSort;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+
+/**
+ * Opaque keyset cursor: the sort column value and id of the last product on a
+ * page, so the next page can seek past it instead of using an offset. Pages
+ * put products without a price or name last; a null value is encoded by
+ * leaving the value out, which keeps it apart from an empty name.
+ */
+record ProductCursor(ProductSort sort, Long lastId, String lastValue) {
+
+    static ProductCursor after(ProductSort sort, Product product) {
+        String value = switch (sort) {
+            case ID -> "";
+            case PRICE -> product.getPrice() == null ? null : product.getPrice().toString();
+            case NAME -> product.getName();
+        };
+        return new ProductCursor(sort, product.getId(), value);
+    }
+
+    static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            return new ProductCursor(ProductSort.valueOf(parts[0]), Long.valueOf(parts[1]),
+                    parts.length == 3 ? parts[2] : null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = sort.name() + ":" + lastId + (lastValue == null ? "" : ":" + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Money lastPrice() {
+        return lastValue == null ? null : Money.of(lastValue);
+    }
+}
@@ -0,0 +1,299 @@
+package com.sultan.springshop.service.product;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.dto.ImportRowError;
+import com.sultan.springshop.dto.ProductImportResultDto;
+import com.sultan.springshop.dto.ProductLabel;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.CategoryRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.request.AddProductRequest;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Inserts many products at once. Existing categories are loaded once for the
+ * whole import, and rows are written as soon as a chunk of them has been
+ * read, each chunk in its own transaction with one duplicate lookup and
+ * JDBC-batched inserts (product ids come from a pooled sequence, so Hibernate
+ * can batch them). A bad row is reported and skipped; a chunk that fails in
+ * the database is reported row by row and the other chunks are still imported.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService implements IProductImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("name", "price", "category");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public ProductImportResultDto importProducts(List<AddProductRequest> products) {
+        ChunkedImport chunkedImport = new ChunkedImport();
+        products.forEach(chunkedImport::add);
+        return chunkedImport.finish();
+    }
+
+    /**
+     * Imports CSV with a header row naming its columns: name, price and
+     * category are required, brand, inventory and description optional, and
+     * any other column is ignored, so a catalog export can be imported back.
+     * Rows are written a chunk at a time while the rest is still being read.
+     */
+    @Override
+    public ProductImportResultDto importProductsCsv(Reader csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(csv);
+        List<String> header = reader.read();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV file is empty");
+        }
+        Map<String, Integer> columns = columnIndexes(header);
+        ChunkedImport chunkedImport = new ChunkedImport();
+        for (List<String> record = reader.read(); record != null; record = reader.read()) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                chunkedImport.add(toRequest(record, columns));
+            } catch (IllegalArgumentException e) {
+                chunkedImport.reject(e.getMessage());
+            }
+        }
+        return chunkedImport.finish();
+    }
+
+    /**
+     * Collects rows until a chunk is full and imports it, so an import holds
+     * one chunk in memory however large its input.
+     */
+    private final class ChunkedImport {
+
+        private final Map<String, Category> categories = new HashMap<>();
+        private final Set<String> importedKeys = new HashSet<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        // rejected rows stay in the chunk as null so row numbers keep matching the input
+        private final List<AddProductRequest> chunk = new ArrayList<>(CHUNK_SIZE);
+        private int received;
+        private int imported;
+
+        ChunkedImport() {
+            for (Category category : categoryRepository.findAll()) {
+                categories.put(category.getName(), category);
+            }
+        }
+
+        void add(AddProductRequest request) {
+            String problem = validate(request);
+            if (problem != null) {
+                reject(problem);
+                return;
+            }
+            received++;
+            chunk.add(request);
+            importIfFull();
+        }
+
+        void reject(String problem) {
+            received++;
+            errors.add(new ImportRowError(received, problem));
+            chunk.add(null);
+            importIfFull();
+        }
+
+        ProductImportResultDto finish() {
+            importChunk();
+            errors.sort(Comparator.comparingInt(ImportRowError::row));
+            return new ProductImportResultDto(received, imported, errors);
+        }
+
+        private void importIfFull() {
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk();
+            }
+        }
+
+        private void importChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            resolveCategories(chunk, categories);
+            imported += ProductImportService.this.importChunk(chunk, received - chunk.size(), categories,
+                    importedKeys, errors);
+            chunk.clear();
+        }
+    }
+
+    // firstRow is the number of rows before the chunk, so the chunk's rows are numbered from firstRow + 1
+    private int importChunk(List<AddProductRequest> rows, int firstRow, Map<String, Category> categories,
+            Set<String> importedKeys, List<ImportRowError> errors) {
+        List<Integer> insertedRows = new ArrayList<>();
+        Set<String> chunkKeys = new HashSet<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                Set<String> existingKeys = findExistingKeys(rows);
+                for (int i = 0; i < rows.size(); i++) {
+                    AddProductRequest request = rows.get(i);
+                    if (request == null) {
+                        continue;
+                    }
+                    String key = key(request.getName(), request.getBrand());
+                    if (existingKeys.contains(key) || importedKeys.contains(key) || !chunkKeys.add(key)) {
+                        errors.add(new ImportRowError(firstRow + i + 1, request.getBrand() + " "
+                                + request.getName() + " already exists"));
+                        continue;
+                    }
+                    Product product = new Product(request.getName(), request.getBrand(),
+                            Money.of(request.getPrice()), request.getInventory(), request.getDescription(),
+                            categories.get(request.getCategory().getName()));
+                    entityManager.persist(product);
+                    eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+                    insertedRows.add(firstRow + i + 1);
+                }
+                entityManager.flush();
+                // keep the persistence context at one chunk
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            for (int row : insertedRows) {
+                errors.add(new ImportRowError(row, "Not imported: " + e.getMessage()));
+            }
+            return 0;
+        }
+        importedKeys.addAll(chunkKeys);
+        return insertedRows.size();
+    }
+
+    private Set<String> findExistingKeys(List<AddProductRequest> rows) {
+        Set<String> names = new HashSet<>();
+        for (AddProductRequest request : rows) {
+            if (request != null) {
+                names.add(request.getName());
+            }
+        }
+        Set<String> keys = new HashSet<>();
+        if (!names.isEmpty()) {
+            for (ProductLabel label : productRepository.findLabelsByNameIn(names)) {
+                keys.add(key(label.name(), label.brand()));
+            }
+        }
+        return keys;
+    }
+
+    // creates the categories of the chunk not known yet in one go
+    private void resolveCategories(List<AddProductRequest> rows, Map<String, Category> categories) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (AddProductRequest request : rows) {
+            if (request != null && !categories.containsKey(request.getCategory().getName())) {
+                missing.add(request.getCategory().getName());
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Category category : categoryRepository.saveAll(missing.stream().map(Category::new).toList())) {
+                categories.put(category.getName(), category);
+            }
+        }
+    }
+
+    private static String validate(AddProductRequest request) {
+        if (request == null) {
+            return "Row is empty";
+        }
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (request.getPrice() == null) {
+            return "Price is required";
+        }
+        if (request.getPrice().signum() < 0) {
+            return "Price must not be negative";
+        }
+        if (request.getPrice().stripTrailingZeros().scale() > Money.DEFAULT_CURRENCY.getDefaultFractionDigits()) {
+            return "Price has too many decimals";
+        }
+        if (request.getInventory() < 0) {
+            return "Inventory must not be negative";
+        }
+        if (request.getCategory() == null || request.getCategory().getName() == null
+                || request.getCategory().getName().isBlank()) {
+            return "Category is required";
+        }
+        return null;
+    }
+
+    private static String key(String name, String brand) {
+        return name + '\u0000' + Objects.toString(brand, "");
+    }
+
+    private static Map<String, Integer> columnIndexes(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // a byte order mark may precede the first column name
+            String column = header.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(column, i);
+        }
+        for (String required : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("The CSV header has no " + required + " column");
+            }
+        }
+        return columns;
+    }
+
+    private static AddProductRequest toRequest(List<String> record, Map<String, Integer> columns) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(field(record, columns, "name"));
+        request.setBrand(field(record, columns, "brand"));
+        request.setDescription(field(record, columns, "description"));
+        String category = field(record, columns, "category");
+        request.setCategory(category == null ? null : new Category(category));
+        String price = field(record, columns, "price");
+        String inventory = field(record, columns, "inventory");
+        try {
+            request.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        try {
+            request.setInventory(inventory == null ? 0 : Integer.parseInt(inventory));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid inventory: " + inventory);
+        }
+        return request;
+    }
+
+    // missing and blank fields both read as null
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isBlank()) {
+            return null;
+        }
+        return record.get(index).strip();
+    }
+}
@@ -1,19 +1,38 @@
 package com.sultan.springshop.service.product;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.sultan.springshop.config.CacheConfig;
+import com.sultan.springshop.dto.FacetCountsDto;
 import com.sultan.springshop.dto.ImageDto;
+import com.sultan.springshop.dto.ImageSummary;
 import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.ProductPageDto;
+import com.sultan.springshop.enums.ProductSort;
 import com.sultan.springshop.exceptions.AlreadyExistsException;
 import com.sultan.springshop.exceptions.ProductNotFoundException;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.ProductMapper;
 import com.sultan.springshop.model.Category;
-import com.sultan.springshop.model.Image;
+import com.sultan.springshop.model.Money;
 import com.sultan.springshop.model.Product;
 import com.sultan.springshop.repository.CartItemRepository;
 import com.sultan.springshop.repository.CategoryRepository;
@@ -21,18 +40,34 @@ import com.sultan.springshop.repository.ImageRepository;
 import com.sultan.springshop.repository.ProductRepository;
 import com.sultan.springshop.request.AddProductRequest;
 import com.sultan.springshop.request.UpdateProductRequest;
+import com.sultan.springshop.service.search.ProductFacetIndex;
+import com.sultan.springshop.service.search.ProductSearchIndex;
+import com.sultan.springshop.service.search.ProductSuggester;
+import com.sultan.springshop.service.search.SearchHits;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService implements IProductService {
 
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    // keeps the IN list well below the driver's bind parameter limit
+    private static final int IMAGE_BATCH_SIZE = 1000;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ImageRepository imageRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
     private final CartItemRepository cartItemRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Override
     public Product addProduct(AddProductRequest request) {
@@ -41,6 +76,8 @@ public class ProductService implements IProductService {
         // if no, then save it as a new category
         // then set as the new product category
 
+        // rejects a price with more decimals than cents before anything is saved
+        Money price = toMoney(request.getPrice());
         if (productExists(request.getName(), request.getBrand())) {
             throw new AlreadyExistsException(request.getBrand() + " " + request.getName()
                     + " already exists, you may update this product instead");
@@ -54,20 +91,24 @@ public class ProductService implements IProductService {
 
         request.setCategory(category);
 
-        return productRepository.save(createProduct(request, category));
+        Product savedProduct = productRepository.save(createProduct(request, category, price));
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+        return savedProduct;
     }
 
     @Override
     public Product updateProduct(UpdateProductRequest updateProductRequest, Long productId) {
-        return productRepository.findById(productId)
+        Product updatedProduct = productRepository.findById(productId)
                 .map(existingProduct -> updateExistingProduct(existingProduct, updateProductRequest))
                 .map(productRepository::save).orElseThrow(() -> new ProductNotFoundException("Product not found!"));
+        eventPublisher.publishEvent(ProductChangedEvent.saved(updatedProduct));
+        return updatedProduct;
     }
 
     private Product updateExistingProduct(Product existingProduct, UpdateProductRequest request) {
         existingProduct.setName(request.getName());
         existingProduct.setBrand(request.getBrand());
-        existingProduct.setPrice(request.getPrice());
+        existingProduct.setPrice(toMoney(request.getPrice()));
         existingProduct.setInventory(request.getInventory());
         existingProduct.setDescription(request.getDescription());
 
@@ -76,25 +117,52 @@ public class ProductService implements IProductService {
         return existingProduct;
     }
 
-    private Product createProduct(AddProductRequest request, Category category) {
+    private Product createProduct(AddProductRequest request, Category category, Money price) {
         return new Product(
                 request.getName(),
                 request.getBrand(),
-                request.getPrice(),
+                price,
                 request.getInventory(),
                 request.getDescription(),
                 category);
     }
 
+    private static Money toMoney(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+
     private boolean productExists(String name, String brand) {
         return productRepository.existsByNameAndBrand(name, brand);
     }
 
+    // not cached: callers attach the entity to their own session and may change it
     @Override
     public Product getProductById(Long id) {
         return productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Product not found"));
     }
 
+    /**
+     * Served from a cache of DTOs that hold no entity; every caller gets its
+     * own copy, so nothing it does reaches the cached value. Loads are
+     * synchronized per product.
+     */
+    @Override
+    public ProductDto getProductDtoById(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_DTOS);
+        if (cache == null) {
+            return convertToDto(getProductById(id));
+        }
+        try {
+            return productMapper.copy(cache.get(id, () -> convertToDto(getProductById(id))));
+        } catch (Cache.ValueRetrievalException e) {
+            // a missing product is reported as such, not as a cache failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     @Transactional
     @Override
     public void deleteProductById(Long id) {
@@ -105,11 +173,68 @@ public class ProductService implements IProductService {
         productRepository.findById(id).ifPresentOrElse(productRepository::delete, () -> {
             throw new ResourceNotFoundException("Product not found!");
         });
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    @Override
+    public Product setFlashSale(Long productId, boolean enabled) {
+        // a targeted update, so saving the entity cannot write back a stale inventory count
+        if (productRepository.updateFlashSale(productId, enabled) == 0) {
+            throw new ResourceNotFoundException("Product not found!");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found!"));
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return product;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ProductPageDto getProductsPage(String cursor, int size, ProductSort sort) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        // fetch one extra row to learn whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        ProductCursor after = cursor == null ? null : ProductCursor.decode(cursor);
+        if (after != null && after.sort() != sort) {
+            throw new IllegalArgumentException("Cursor does not match sort " + sort);
+        }
+
+        List<Product> products = switch (sort) {
+            case ID -> productRepository.findPageAfterId(after == null ? 0L : after.lastId(), limit);
+            case PRICE -> after == null ? productRepository.findAllByOrderByPriceAscIdAsc(limit)
+                    : after.lastValue() == null ? productRepository.findPageAfterNullPrice(after.lastId(), limit)
+                    : productRepository.findPageAfterPrice(after.lastPrice(), after.lastId(), limit);
+            case NAME -> after == null ? productRepository.findAllByOrderByNameAscIdAsc(limit)
+                    : after.lastValue() == null ? productRepository.findPageAfterNullName(after.lastId(), limit)
+                    : productRepository.findPageAfterName(after.lastValue(), after.lastId(), limit);
+        };
+
+        boolean hasNext = products.size() > pageSize;
+        List<Product> page = hasNext ? products.subList(0, pageSize) : products;
+        String nextCursor = hasNext ? ProductCursor.after(sort, page.get(page.size() - 1)).encode() : null;
+        return new ProductPageDto(getConvertedProducts(page), nextCursor, hasNext);
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public void streamProducts(LocalDateTime updatedSince, Consumer<ProductDto> consumer) {
+        try (Stream<Product> products = updatedSince == null ? productRepository.streamAllWithCategory()
+                : productRepository.streamUpdatedSinceWithCategory(updatedSince)) {
+            Iterator<Product> iterator = products.iterator();
+            List<Product> chunk = new ArrayList<>(STREAM_CLEAR_INTERVAL);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CLEAR_INTERVAL || !iterator.hasNext()) {
+                    getConvertedProducts(chunk).forEach(consumer);
+                    chunk.clear();
+                    // detach what has already been written so the persistence context stays bounded
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     @Override
@@ -144,21 +269,71 @@ public class ProductService implements IProductService {
 
     @Override
     public List<ProductDto> getConvertedProducts(List<Product> products) {
-        return products.stream().map(this::convertToDto).toList();
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ImageDto>> imagesByProduct = findImagesByProductIds(products);
+        return products.stream()
+                .map(product -> toDto(product, imagesByProduct.getOrDefault(product.getId(), List.of())))
+                .toList();
     }
 
     @Override
     public ProductDto convertToDto(Product product) {
-        ProductDto productDto = modelMapper.map(product, ProductDto.class);
-        List<Image> images = imageRepository.findByProductId(product.getId());
-        List<ImageDto> imageDtos = images.stream().map(image -> modelMapper.map(image, ImageDto.class)).toList();
-        productDto.setImages(imageDtos);
+        return getConvertedProducts(List.of(product)).get(0);
+    }
+
+    private Map<Long, List<ImageDto>> findImagesByProductIds(List<Product> products) {
+        List<Long> productIds = products.stream().map(Product::getId).toList();
+        Map<Long, List<ImageDto>> imagesByProduct = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += IMAGE_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + IMAGE_BATCH_SIZE, productIds.size()));
+            for (ImageSummary image : imageRepository.findByProductIdIn(batch)) {
+                imagesByProduct.computeIfAbsent(image.productId(), id -> new ArrayList<>()).add(productMapper.toImageDto(image));
+            }
+        }
+        return imagesByProduct;
+    }
+
+    private ProductDto toDto(Product product, List<ImageDto> images) {
+        ProductDto productDto = productMapper.toDto(product);
+        productDto.setImages(images);
         return productDto;
     }
 
     @Override
-    public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+    public List<Product> searchProducts(String keyword, int page, int size, boolean fuzzy) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Invalid page request");
+        }
+        SearchHits hits = productSearchIndex.search(keyword, page, Math.min(size, MAX_PAGE_SIZE), fuzzy);
+        return findAllInOrder(hits.productIds());
+    }
+
+    @Override
+    public int reindexProducts() {
+        return productSearchIndex.rebuild();
+    }
+
+    @Override
+    public List<String> suggestProducts(String prefix, int limit) {
+        return productSuggester.suggest(prefix, limit);
+    }
+
+    @Override
+    public FacetCountsDto getFacetCounts(List<String> categories, List<String> brands, List<String> priceRanges) {
+        return productFacetIndex.facets(categories, brands, priceRanges);
+    }
+
+    // loads products by id and keeps the order the ids were ranked in
+    private List<Product> findAllInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> productsById.put(product.getId(), product));
+        // ids removed from the database since they were indexed are skipped
+        return productIds.stream().map(productsById::get).filter(Objects::nonNull).toList();
     }
 
 }
@@ -0,0 +1,155 @@
+package com.sultan.springshop.service.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over the vocabulary of product names and brands, used to find
+ * the terms within a small edit distance of a misspelled query token.
+ *
+ * One edit (a transposition included) touches at most four of a word's padded
+ * trigrams, so a term within {@code d} edits must share at least
+ * {@code trigrams(token) - 4d} trigrams with the token. That filter, plus the
+ * length difference, leaves a short candidate list which is checked with a
+ * bounded edit distance. Not thread-safe; guarded by the owning index.
+ */
+final class FuzzyTermIndex {
+
+    private final Map<String, Integer> termCounts = new HashMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+    void add(String term) {
+        if (termCounts.merge(term, 1, Integer::sum) == 1) {
+            for (String trigram : trigrams(term)) {
+                termsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+            }
+        }
+    }
+
+    void remove(String term) {
+        Integer count = termCounts.computeIfPresent(term, (t, c) -> c == 1 ? null : c - 1);
+        if (count == null) {
+            for (String trigram : trigrams(term)) {
+                Set<String> terms = termsByTrigram.get(trigram);
+                if (terms != null) {
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed terms within the allowed edit distance of the token,
+     * mapped to their distance. Most typos are a single edit, so distance one
+     * is tried first and the wider distance-two search only runs when that
+     * finds nothing.
+     */
+    Map<String, Integer> matches(String token) {
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        int maxEdits = maxEdits(token);
+        for (int edits = 1; edits <= maxEdits && matches.isEmpty(); edits++) {
+            collectMatches(token, edits, matches);
+        }
+        return matches;
+    }
+
+    private void collectMatches(String token, int maxEdits, Map<String, Integer> matches) {
+        List<Set<String>> postings = new ArrayList<>();
+        for (String trigram : trigrams(token)) {
+            postings.add(termsByTrigram.getOrDefault(trigram, Set.of()));
+        }
+        int required = Math.max(1, postings.size() - 4 * maxEdits);
+        // a term sharing `required` of the token's trigrams must appear in at least one of
+        // any (size - required + 1) of them, so candidates only come from the rarest ones
+        postings.sort(Comparator.comparingInt(Set::size));
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (Set<String> posting : postings.subList(0, postings.size() - required + 1)) {
+            for (String term : posting) {
+                if (Math.abs(term.length() - token.length()) <= maxEdits) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        for (Set<String> posting : postings.subList(postings.size() - required + 1, postings.size())) {
+            for (Map.Entry<String, Integer> candidate : sharedTrigrams.entrySet()) {
+                if (posting.contains(candidate.getKey())) {
+                    candidate.setValue(candidate.getValue() + 1);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> candidate : sharedTrigrams.entrySet()) {
+            if (candidate.getValue() < required) {
+                continue;
+            }
+            int distance = editDistance(token, candidate.getKey(), maxEdits);
+            if (distance <= maxEdits) {
+                matches.put(candidate.getKey(), distance);
+            }
+        }
+    }
+
+    int size() {
+        return termCounts.size();
+    }
+
+    // short tokens tolerate fewer typos, otherwise everything matches everything
+    static int maxEdits(String token) {
+        if (token.length() <= 2) {
+            return 0;
+        }
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent
+     * transpositions), giving up with {@code max + 1} once every alignment
+     * exceeds {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previousPrevious[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    // "sam" -> {"$$s", "$sa", "sam", "am$"}
+    private static Set<String> trigrams(String term) {
+        String padded = "$$" + term + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
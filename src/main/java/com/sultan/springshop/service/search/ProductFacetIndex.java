@@ -0,0 +1,204 @@
+package com.sultan.springshop.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.sultan.springshop.dto.FacetCountsDto;
+import com.sultan.springshop.dto.ProductFacetRow;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.product.ProductChangedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Product counts per category, brand and price range.
+ *
+ * Instead of per-product data, the index keeps one counter per distinct
+ * (category, brand, price range) combination, of which there are far fewer
+ * than products. Any filter combination is answered by one pass over those
+ * counters, and a product write only moves one count from its old combination
+ * to its new one.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    static final String UNCATEGORIZED = "Uncategorized";
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+    private static final int REBUILD_THREADS = 4;
+    // in cents
+    private static final long[] PRICE_BOUNDS = { 25_00, 50_00, 100_00, 250_00, 500_00, 1000_00 };
+    private static final String[] PRICE_RANGES = { "0-25", "25-50", "50-100", "100-250", "250-500", "500-1000",
+            "1000+" };
+
+    private final ProductRepository productRepository;
+
+    private volatile Counts counts = new Counts();
+    // writes that arrive while a rebuild is running, replayed onto the new counts
+    private List<Consumer<Counts>> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.productId();
+        FacetKey key = event.isDeleted() ? null : FacetKey.of(event.product());
+        apply(target -> target.put(productId, key));
+    }
+
+    /**
+     * Loads the facet values of all products in id chunks on several threads
+     * and swaps the result in whole.
+     */
+    public int rebuild() {
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+        Counts fresh = new Counts();
+        ExecutorService executor = Executors.newFixedThreadPool(REBUILD_THREADS);
+        try {
+            Long maxId = productRepository.findMaxId();
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (long fromId = 1; maxId != null && fromId <= maxId; fromId += REBUILD_CHUNK_SIZE) {
+                long from = fromId;
+                chunks.add(CompletableFuture.runAsync(() -> productRepository
+                        .findFacetRows(from, from + REBUILD_CHUNK_SIZE - 1)
+                        .forEach(row -> fresh.put(row.id(), FacetKey.of(row))), executor));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        synchronized (this) {
+            pendingWrites.forEach(pending -> pending.accept(fresh));
+            pendingWrites = null;
+            counts = fresh;
+        }
+        return fresh.size();
+    }
+
+    /**
+     * Counts products matching the filters. An empty filter list leaves that
+     * dimension unrestricted; several values in one list match any of them.
+     */
+    public FacetCountsDto facets(Collection<String> categories, Collection<String> brands,
+            Collection<String> priceRanges) {
+        Map<String, Long> categoryCounts = new HashMap<>();
+        Map<String, Long> brandCounts = new HashMap<>();
+        Map<String, Long> priceCounts = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<FacetKey, Long> entry : counts.combinations().entrySet()) {
+            FacetKey key = entry.getKey();
+            long count = entry.getValue();
+            boolean categoryMatches = categories.isEmpty() || categories.contains(key.category());
+            boolean brandMatches = brands.isEmpty() || brands.contains(key.brand());
+            boolean priceMatches = priceRanges.isEmpty() || priceRanges.contains(key.priceRange());
+            if (brandMatches && priceMatches) {
+                categoryCounts.merge(key.category(), count, Long::sum);
+            }
+            if (categoryMatches && priceMatches) {
+                brandCounts.merge(key.brand(), count, Long::sum);
+            }
+            if (categoryMatches && brandMatches) {
+                priceCounts.merge(key.priceRange(), count, Long::sum);
+            }
+            if (categoryMatches && brandMatches && priceMatches) {
+                total += count;
+            }
+        }
+        return new FacetCountsDto(total, largestFirst(categoryCounts), largestFirst(brandCounts),
+                largestFirst(priceCounts));
+    }
+
+    private synchronized void apply(Consumer<Counts> change) {
+        change.accept(counts);
+        if (pendingWrites != null) {
+            pendingWrites.add(change);
+        }
+    }
+
+    private static Map<String, Long> largestFirst(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream().filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    static String priceRange(Money price) {
+        if (price == null) {
+            return PRICE_RANGES[0];
+        }
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (price.minorUnits() < PRICE_BOUNDS[i]) {
+                return PRICE_RANGES[i];
+            }
+        }
+        return PRICE_RANGES[PRICE_RANGES.length - 1];
+    }
+
+    record FacetKey(String category, String brand, String priceRange) {
+
+        static FacetKey of(Product product) {
+            String category = product.getCategory() == null ? null : product.getCategory().getName();
+            return of(category, product.getBrand(), product.getPrice());
+        }
+
+        static FacetKey of(ProductFacetRow row) {
+            return of(row.category(), row.brand(), row.price());
+        }
+
+        private static FacetKey of(String category, String brand, Money price) {
+            return new FacetKey(category == null ? UNCATEGORIZED : category, brand == null ? "" : brand,
+                    ProductFacetIndex.priceRange(price));
+        }
+    }
+
+    private static final class Counts {
+        private final Map<Long, FacetKey> keysByProduct = new ConcurrentHashMap<>();
+        private final Map<FacetKey, Long> combinations = new ConcurrentHashMap<>();
+
+        Map<FacetKey, Long> combinations() {
+            return combinations;
+        }
+
+        int size() {
+            return keysByProduct.size();
+        }
+
+        // a null key removes the product
+        void put(Long productId, FacetKey key) {
+            FacetKey previous = key == null ? keysByProduct.remove(productId) : keysByProduct.put(productId, key);
+            if (previous != null) {
+                combinations.computeIfPresent(previous, (k, count) -> count == 1 ? null : count - 1);
+            }
+            if (key != null) {
+                combinations.merge(key, 1L, Long::sum);
+            }
+        }
+    }
+}
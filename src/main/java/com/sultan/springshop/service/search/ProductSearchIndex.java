@@ -0,0 +1,258 @@
+package com.sultan.springshop.service.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.product.ProductChangedEvent;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory inverted index over product name, brand, description and category
+ * name. Only product ids are held here; the database stays the source of truth
+ * and the index can be rebuilt from it at any time.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // a term that only starts with the query token scores lower than an exact match
+    private static final double PREFIX_WEIGHT = 0.5;
+    // divided by the edit distance of a typo-tolerant match
+    private static final double FUZZY_WEIGHT = 0.4;
+    private static final int REBUILD_CLEAR_INTERVAL = 500;
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // writes that arrive while a rebuild is running, replayed onto the new index
+    private List<Consumer<InvertedIndex>> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public synchronized int rebuild() {
+        write(() -> pendingWrites = new ArrayList<>());
+        InvertedIndex fresh = new InvertedIndex();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<Product> products = productRepository.streamAllWithCategory()) {
+                    Iterator<Product> iterator = products.iterator();
+                    int indexed = 0;
+                    while (iterator.hasNext()) {
+                        fresh.put(Document.of(iterator.next()));
+                        if (++indexed % REBUILD_CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            write(() -> pendingWrites = null);
+            throw e;
+        }
+        write(() -> {
+            pendingWrites.forEach(pending -> pending.accept(fresh));
+            pendingWrites = null;
+            index = fresh;
+        });
+        return fresh.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.productId());
+        } else {
+            index(event.product());
+        }
+    }
+
+    public void index(Product product) {
+        Document document = Document.of(product);
+        apply(target -> target.put(document));
+    }
+
+    public void remove(Long productId) {
+        apply(target -> target.remove(productId));
+    }
+
+    /**
+     * Every query token must match, either exactly or as a prefix of an indexed
+     * term, or with {@code fuzzy} also within one or two typos of a name or
+     * brand term. Hits are ordered by BM25 score, best first.
+     */
+    public SearchHits search(String query, int page, int size, boolean fuzzy) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return SearchHits.empty();
+        }
+        List<Map.Entry<Long, Double>> ranked;
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = fuzzy ? index.fuzzyScore(token) : index.score(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return SearchHits.empty();
+                }
+            }
+            ranked = new ArrayList<>(scores.entrySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<Long> productIds = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+        return new SearchHits(productIds, ranked.size());
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        write(() -> {
+            change.accept(index);
+            if (pendingWrites != null) {
+                pendingWrites.add(change);
+            }
+        });
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Document(Long id, Map<String, Integer> termFrequencies, Set<String> fuzzyTerms, int length) {
+
+        static Document of(Product product) {
+            List<String> tokens = new ArrayList<>();
+            tokens.addAll(Tokenizer.tokenize(product.getName()));
+            tokens.addAll(Tokenizer.tokenize(product.getBrand()));
+            // only names and brands are matched with typos
+            Set<String> fuzzyTerms = new HashSet<>(tokens);
+            tokens.addAll(Tokenizer.tokenize(product.getDescription()));
+            if (product.getCategory() != null) {
+                tokens.addAll(Tokenizer.tokenize(product.getCategory().getName()));
+            }
+            Map<String, Integer> termFrequencies = new HashMap<>();
+            tokens.forEach(token -> termFrequencies.merge(token, 1, Integer::sum));
+            return new Document(product.getId(), termFrequencies, fuzzyTerms, tokens.size());
+        }
+    }
+
+    private static final class InvertedIndex {
+        // sorted so that all terms sharing a prefix form one contiguous range
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final FuzzyTermIndex vocabulary = new FuzzyTermIndex();
+        private long totalLength;
+
+        int size() {
+            return documents.size();
+        }
+
+        void put(Document document) {
+            remove(document.id());
+            documents.put(document.id(), document);
+            totalLength += document.length();
+            document.termFrequencies().forEach((term, frequency) -> postings
+                    .computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), frequency));
+            document.fuzzyTerms().forEach(vocabulary::add);
+        }
+
+        void remove(Long productId) {
+            Document document = documents.remove(productId);
+            if (document == null) {
+                return;
+            }
+            totalLength -= document.length();
+            document.fuzzyTerms().forEach(vocabulary::remove);
+            for (String term : document.termFrequencies().keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        Map<Long, Double> score(String token) {
+            Map<Long, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Integer>> match : postings
+                    .subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                double weight = match.getKey().equals(token) ? 1.0 : PREFIX_WEIGHT;
+                addScores(match.getValue(), weight, scores);
+            }
+            return scores;
+        }
+
+        // prefix matches as in score(), plus name and brand terms within a small edit distance
+        Map<Long, Double> fuzzyScore(String token) {
+            Map<Long, Double> scores = score(token);
+            vocabulary.matches(token).forEach((term, distance) -> {
+                if (distance > 0) {
+                    addScores(postings.get(term), FUZZY_WEIGHT / distance, scores);
+                }
+            });
+            return scores;
+        }
+
+        private void addScores(Map<Long, Integer> posting, double weight, Map<Long, Double> scores) {
+            double averageLength = (double) totalLength / documents.size();
+            double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                int frequency = entry.getValue();
+                int length = documents.get(entry.getKey()).length();
+                double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+                // a document counts once per query token, with its best matching term
+                scores.merge(entry.getKey(), weight * score, Math::max);
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.sultan.springshop.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sultan.springshop.dto.ProductLabel;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.product.ProductChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Typeahead over product names and brands.
+ *
+ * Completions live in one sorted array, so every completion of a prefix is a
+ * contiguous range found with two binary searches. The top completions of all
+ * one- and two-character prefixes, whose ranges are the widest, are computed
+ * when the array is built. A completion's popularity is the number of products
+ * carrying it plus the units of those products sold.
+ *
+ * The array is immutable and swapped whole. All rebuilding happens on a single
+ * background thread, which also applies product writes in order, so no locking
+ * is needed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    public static final int MAX_SUGGESTIONS = 20;
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+    private static final long REFREEZE_DELAY_MILLIS = 500;
+
+    private final ProductRepository productRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${suggest.rebuild-interval-minutes:30}")
+    private long rebuildIntervalMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-suggester");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ThreadLocal<int[]> topBuffer = ThreadLocal.withInitial(() -> new int[MAX_SUGGESTIONS]);
+
+    // only touched from the executor thread
+    private Map<Long, Entry> entries = new HashMap<>();
+    private boolean refreezeScheduled;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.productId();
+        boolean deleted = event.isDeleted();
+        String name = deleted ? null : event.product().getName();
+        String brand = deleted ? null : event.product().getBrand();
+        executor.execute(() -> {
+            if (deleted) {
+                entries.remove(productId);
+            } else {
+                Entry previous = entries.get(productId);
+                entries.put(productId, new Entry(name, brand, previous == null ? 1 : previous.weight()));
+            }
+            scheduleRefreeze();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns up to {@code limit} names and brands starting with
+     * {@code prefix}, most popular first. Apart from the returned list nothing
+     * is allocated per call.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        int k = Math.min(limit, MAX_SUGGESTIONS);
+        if (prefix == null || prefix.isBlank() || k < 1) {
+            return List.of();
+        }
+        if (prefix.length() <= PRECOMPUTED_PREFIX_LENGTH) {
+            List<String> top = current.topByShortPrefix().get(prefix.toLowerCase(Locale.ROOT));
+            return top == null ? List.of() : top.subList(0, Math.min(k, top.size()));
+        }
+        int from = lowerBound(current.keys(), prefix);
+        int to = upperBound(current.keys(), prefix, from);
+        return top(current, from, to, k, topBuffer.get());
+    }
+
+    private void rebuild() {
+        try {
+            Map<Long, Long> unitsSold = new HashMap<>();
+            Map<Long, Entry> fresh = new HashMap<>();
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                productRepository.sumUnitsSoldByProduct()
+                        .forEach(sold -> unitsSold.merge(sold.getProductId(), sold.getUnits(), Long::sum));
+                archivedOrderRepository.sumUnitsSoldByProduct()
+                        .forEach(sold -> unitsSold.merge(sold.getProductId(), sold.getUnits(), Long::sum));
+                try (Stream<ProductLabel> labels = productRepository.streamAllLabels()) {
+                    labels.forEach(label -> fresh.put(label.id(),
+                            new Entry(label.name(), label.brand(), 1 + unitsSold.getOrDefault(label.id(), 0L))));
+                }
+            });
+            entries = fresh;
+            snapshot = freeze(entries);
+        } catch (RuntimeException e) {
+            // keep serving the previous snapshot; the next scheduled run retries
+            log.error("Rebuilding product suggestions failed, keeping the previous {} products", entries.size(), e);
+        }
+    }
+
+    // coalesces bursts of writes into one re-sort of the completions
+    private void scheduleRefreeze() {
+        if (refreezeScheduled) {
+            return;
+        }
+        refreezeScheduled = true;
+        executor.schedule(() -> {
+            refreezeScheduled = false;
+            snapshot = freeze(entries);
+        }, REFREEZE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    static Snapshot freeze(Map<Long, Entry> entries) {
+        Map<String, String> labelByKey = new HashMap<>();
+        Map<String, Long> weightByKey = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            addCompletion(entry.name(), entry.weight(), labelByKey, weightByKey);
+            addCompletion(entry.brand(), entry.weight(), labelByKey, weightByKey);
+        }
+
+        String[] keys = labelByKey.keySet().toArray(String[]::new);
+        Arrays.sort(keys);
+        String[] labels = new String[keys.length];
+        long[] weights = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            labels[i] = labelByKey.get(keys[i]);
+            weights[i] = weightByKey.get(keys[i]);
+        }
+        Snapshot snapshot = new Snapshot(keys, labels, weights, new HashMap<>());
+
+        for (int i = 0; i < keys.length; i++) {
+            for (int length = 1; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, keys[i].length()); length++) {
+                String prefix = keys[i].substring(0, length);
+                if (!snapshot.topByShortPrefix().containsKey(prefix)) {
+                    int to = upperBound(keys, prefix, i);
+                    List<String> top = top(snapshot, i, to, MAX_SUGGESTIONS, new int[MAX_SUGGESTIONS]);
+                    snapshot.topByShortPrefix().put(prefix, List.copyOf(top));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static void addCompletion(String label, long weight, Map<String, String> labelByKey,
+            Map<String, Long> weightByKey) {
+        if (label == null || label.isBlank()) {
+            return;
+        }
+        String key = label.strip().toLowerCase(Locale.ROOT);
+        labelByKey.putIfAbsent(key, label.strip());
+        weightByKey.merge(key, weight, Long::sum);
+    }
+
+    private static List<String> top(Snapshot snapshot, int from, int to, int k, int[] best) {
+        int count = 0;
+        long[] weights = snapshot.weights();
+        // insertion into a k-sized window keeps the scan allocation-free
+        for (int i = from; i < to; i++) {
+            if (count == k && weights[i] <= weights[best[count - 1]]) {
+                continue;
+            }
+            int position = count < k ? count++ : k - 1;
+            while (position > 0 && weights[best[position - 1]] < weights[i]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = i;
+        }
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(snapshot.labels()[best[i]]);
+        }
+        return result;
+    }
+
+    // first index whose key is not below the prefix
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareToPrefix(keys[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // first index at or after from whose key neither starts with nor sorts below the prefix
+    private static int upperBound(String[] keys, String prefix, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareToPrefix(keys[middle], prefix) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares a lowercase key against the prefix, lowercasing the prefix one
+     * character at a time. Returns 0 when the key starts with the prefix.
+     */
+    private static int compareToPrefix(String key, String prefix) {
+        int length = Math.min(key.length(), prefix.length());
+        for (int i = 0; i < length; i++) {
+            char expected = Character.toLowerCase(prefix.charAt(i));
+            if (key.charAt(i) != expected) {
+                return key.charAt(i) - expected;
+            }
+        }
+        return key.length() < prefix.length() ? -1 : 0;
+    }
+
+    record Entry(String name, String brand, long weight) {
+    }
+
+    record Snapshot(String[] keys, String[] labels, long[] weights, Map<String, List<String>> topByShortPrefix) {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new long[0], Map.of());
+    }
+}
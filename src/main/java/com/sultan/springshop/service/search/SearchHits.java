@@ -0,0 +1,10 @@
+package com.sultan.springshop.service.search;
+
+import java.util.List;
+
+public record SearchHits(List<Long> productIds, int total) {
+
+    public static SearchHits empty() {
+        return new SearchHits(List.of(), 0);
+    }
+}
@@ -1,6 +1,5 @@
 package com.sultan.springshop.service.user;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -9,6 +8,7 @@ import org.springframework.stereotype.Service;
 import com.sultan.springshop.dto.UserDto;
 import com.sultan.springshop.exceptions.AlreadyExistsException;
 import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.UserMapper;
 import com.sultan.springshop.model.User;
 import com.sultan.springshop.repository.UserRepository;
 import com.sultan.springshop.request.CreateUserRequest;
@@ -25,7 +25,7 @@ import java.util.Optional;
 public class UserService implements IUserService {
 
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final ICartService cartService;
 
@@ -66,7 +66,7 @@ public class UserService implements IUserService {
 
     @Override
     public UserDto convertUsertoDto(User user) {
-        return modelMapper.map(user, UserDto.class);
+        return userMapper.toDto(user);
     }
 
     @Override
@@ -2,14 +2,17 @@ package com.sultan.springshop.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stripe.exception.StripeException;
+import com.sultan.springshop.service.idempotency.IdempotencyStore;
 import com.sultan.springshop.service.order.OrderService;
 import com.sultan.springshop.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
@@ -17,21 +20,27 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+// the payment endpoints are public, so the security filters are left out
 @WebMvcTest(PaymentController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(IdempotencyStore.class)
 public class PaymentControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @MockitoBean
     private OrderService orderService;
 
-    @MockBean
+    @MockitoBean
     private PaymentService paymentService;
 
     private ObjectMapper objectMapper = new ObjectMapper();
@@ -66,6 +75,36 @@ public class PaymentControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    void createCheckoutSession_shouldReplayTheSessionForARetriedIdempotencyKey() throws Exception {
+        when(paymentService.createCheckoutSession(1L)).thenReturn("cs_test_123");
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/v1/payment/create-checkout-session/{orderId}", 1L)
+                    .header(IdempotencyStore.HEADER, "retry-1")
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value("cs_test_123"));
+        }
+
+        verify(paymentService, times(1)).createCheckoutSession(1L);
+        mockMvc.perform(post("/api/v1/payment/create-checkout-session/{orderId}", 1L)
+                .header(IdempotencyStore.HEADER, "retry-1"))
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"));
+    }
+
+    @Test
+    void createCheckoutSession_shouldRejectAnIdempotencyKeyReusedForAnotherOrder() throws Exception {
+        when(paymentService.createCheckoutSession(anyLong())).thenReturn("cs_test_123");
+
+        mockMvc.perform(post("/api/v1/payment/create-checkout-session/{orderId}", 1L)
+                .header(IdempotencyStore.HEADER, "retry-2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/payment/create-checkout-session/{orderId}", 2L)
+                .header(IdempotencyStore.HEADER, "retry-2"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void handleStripeWebhook_shouldReturnOk() throws Exception {
         String payload = "{}";
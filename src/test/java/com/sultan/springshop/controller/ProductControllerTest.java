@@ -0,0 +1,97 @@
+package com.sultan.springshop.controller;
+
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.ProductPageDto;
+import com.sultan.springshop.enums.ProductSort;
+import com.sultan.springshop.service.product.CatalogExporter;
+import com.sultan.springshop.service.product.IProductImportService;
+import com.sultan.springshop.service.product.IProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the slice falls back to default security (CSRF plus login); ShopConfig leaves these endpoints public
+@WebMvcTest(ProductController.class)
+@AutoConfigureMockMvc(addFilters = false)
+public class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private IProductService productService;
+
+    @MockitoBean
+    private IProductImportService productImportService;
+
+    @MockitoBean
+    private CatalogExporter catalogExporter;
+
+    @Test
+    void getAllProducts_shouldReturnTheFirstPageWhenNoCursorOrSizeIsGiven() throws Exception {
+        when(productService.getProductsPage(null, 20, ProductSort.ID))
+                .thenReturn(new ProductPageDto(List.of(product(1L), product(2L)), "next", true));
+
+        mockMvc.perform(get("/api/v1/products/all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products.length()").value(2))
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.hasNext").value(true));
+    }
+
+    @Test
+    void getAllProducts_shouldContinueFromTheCursorOfThePreviousPage() throws Exception {
+        when(productService.getProductsPage(null, 2, ProductSort.PRICE))
+                .thenReturn(new ProductPageDto(List.of(product(1L), product(2L)), "after-2", true));
+        when(productService.getProductsPage("after-2", 2, ProductSort.PRICE))
+                .thenReturn(new ProductPageDto(List.of(product(3L)), null, false));
+
+        mockMvc.perform(get("/api/v1/products/all").param("size", "2").param("sort", "price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products[1].id").value(2))
+                .andExpect(jsonPath("$.data.nextCursor").value("after-2"));
+        mockMvc.perform(get("/api/v1/products/all").param("size", "2").param("sort", "price")
+                .param("cursor", "after-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products[0].id").value(3))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+    }
+
+    @Test
+    void getAllProducts_shouldRejectAnUnknownSort() throws Exception {
+        mockMvc.perform(get("/api/v1/products/all").param("sort", "rating"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).getProductsPage(any(), anyInt(), any());
+    }
+
+    @Test
+    void getAllProducts_shouldRejectACursorThatDoesNotMatchTheSort() throws Exception {
+        when(productService.getProductsPage("after-2", 20, ProductSort.NAME))
+                .thenThrow(new IllegalArgumentException("Cursor does not match sort NAME"));
+
+        mockMvc.perform(get("/api/v1/products/all").param("sort", "name").param("cursor", "after-2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cursor does not match sort NAME"));
+    }
+
+    private static ProductDto product(Long id) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        return product;
+    }
+}
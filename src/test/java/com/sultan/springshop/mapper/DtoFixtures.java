@@ -0,0 +1,95 @@
+package com.sultan.springshop.mapper;
+
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.Role;
+import com.sultan.springshop.model.User;
+import org.modelmapper.ModelMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A small user graph shared by the mapper equivalence test and benchmark, and
+ * the ModelMapper setup the application used before the hand-written mappers.
+ */
+final class DtoFixtures {
+
+    private DtoFixtures() {
+    }
+
+    static ModelMapper legacyModelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.addConverter(context -> context.getSource() == null ? null : context.getSource().toBigDecimal(),
+                Money.class, BigDecimal.class);
+        modelMapper.typeMap(Product.class, ProductDto.class).addMappings(mapper -> mapper.skip(ProductDto::setImages));
+        // implicit matching cannot tell orderStatus from paymentStatus for "status", so pin the intended source
+        modelMapper.typeMap(Order.class, OrderDto.class)
+                .addMappings(mapper -> mapper.map(Order::getOrderStatus, OrderDto::setStatus));
+        return modelMapper;
+    }
+
+    static Product product(long id) {
+        Product product = new Product("Phone " + id, "Acme", Money.of("499.99"), 7, "A phone",
+                new Category("Electronics"));
+        product.setId(id);
+        product.getCategory().setId(3L);
+        product.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 15));
+        return product;
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(5L);
+        user.setFirstName("Sam");
+        user.setLastName("Smith");
+        user.setEmail("sam1@email.com");
+        user.setPassword("secret");
+        Role role = new Role("ROLE_USER");
+        role.setId(2L);
+        user.setRoles(Set.of(role));
+        user.setCart(cart(user));
+        user.setOrders(new ArrayList<>(List.of(order(user))));
+        return user;
+    }
+
+    static Cart cart(User user) {
+        Cart cart = new Cart();
+        cart.setId(11L);
+        cart.setUser(user);
+        CartItem item = new CartItem();
+        item.setId(12L);
+        item.setQuantity(2);
+        item.setUnitPrice(Money.of("499.99"));
+        item.setTotalPrice(Money.of("999.98"));
+        item.setProduct(product(1L));
+        item.setCart(cart);
+        cart.getItems().add(item);
+        cart.setTotalAmount(Money.of("999.98"));
+        return cart;
+    }
+
+    static Order order(User user) {
+        Order order = new Order();
+        order.setOrderId(21L);
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.of(2025, 3, 2, 9, 30));
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setPaymentStatus("PAID");
+        order.setPaymentId("pi_123");
+        order.getOrderItems().add(new OrderItem(order, product(2L), 3, Money.of("19.50")));
+        order.setTotalAmount(Money.of("58.50"));
+        return order;
+    }
+}
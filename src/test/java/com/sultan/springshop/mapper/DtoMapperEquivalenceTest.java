@@ -0,0 +1,64 @@
+package com.sultan.springshop.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sultan.springshop.dto.CartDto;
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.UserDto;
+import com.sultan.springshop.model.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hand-written mappers must produce the same JSON the ModelMapper-based
+ * conversion did.
+ */
+public class DtoMapperEquivalenceTest {
+
+    private final ModelMapper modelMapper = DtoFixtures.legacyModelMapper();
+    private final ProductMapper productMapper = new ProductMapper();
+    private final OrderMapper orderMapper = new OrderMapper();
+    private final CartMapper cartMapper = new CartMapper(productMapper);
+    private final UserMapper userMapper = new UserMapper(orderMapper, cartMapper);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void productMapper_shouldMatchModelMapper() throws Exception {
+        assertSameJson(modelMapper.map(DtoFixtures.product(1L), ProductDto.class),
+                productMapper.toDto(DtoFixtures.product(1L)));
+    }
+
+    @Test
+    void cartMapper_shouldMatchModelMapper() throws Exception {
+        User user = DtoFixtures.user();
+        CartDto cartDto = cartMapper.toDto(user.getCart());
+
+        assertSameJson(modelMapper.map(user.getCart(), CartDto.class), cartDto);
+        assertEquals(11L, cartDto.getCartId());
+    }
+
+    @Test
+    void orderMapper_shouldMatchModelMapper() throws Exception {
+        User user = DtoFixtures.user();
+        OrderDto orderDto = orderMapper.toDto(user.getOrders().get(0));
+
+        assertSameJson(modelMapper.map(user.getOrders().get(0), OrderDto.class), orderDto);
+        assertEquals(5L, orderDto.getUserId());
+        assertEquals("PENDING", orderDto.getStatus());
+        assertEquals("Phone 2", orderDto.getItems().get(0).getProductName());
+    }
+
+    @Test
+    void userMapper_shouldMatchModelMapper() throws Exception {
+        User user = DtoFixtures.user();
+
+        assertSameJson(modelMapper.map(user, UserDto.class), userMapper.toDto(user));
+    }
+
+    private void assertSameJson(Object expected, Object actual) throws Exception {
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(expected)),
+                objectMapper.readTree(objectMapper.writeValueAsString(actual)));
+    }
+}
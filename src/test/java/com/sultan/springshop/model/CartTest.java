@@ -0,0 +1,91 @@
+package com.sultan.springshop.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartTest {
+
+    @Test
+    void addQuantity_shouldFindTheProductsLineAndAdjustTheTotal() {
+        Cart cart = new Cart();
+        Product phone = product(1L, "199.99");
+        Product cable = product(2L, "4.50");
+
+        CartItem line = cart.addQuantity(phone, 1);
+        cart.addQuantity(cable, 2);
+        assertSame(line, cart.addQuantity(phone, 2));
+
+        assertEquals(2, cart.getItems().size());
+        assertEquals(3, cart.findItem(1L).orElseThrow().getQuantity());
+        assertEquals(Money.of("608.97"), cart.getTotalAmount());
+        cart.verifyTotalAmount();
+        assertNotNull(cart.getLastModified());
+    }
+
+    @Test
+    void mutations_shouldKeepTheTotalEqualToAFullRecompute() {
+        Cart cart = new Cart();
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            Product product = product(id, "1");
+            product.setPrice(Money.ofMinor(1 + random.nextInt(100_000)));
+            products.add(product);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            Product product = products.get(random.nextInt(products.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> cart.addQuantity(product, 1 + random.nextInt(5));
+                case 1 -> cart.findItem(product.getId())
+                        .ifPresent(item -> cart.updateItem(item, 1 + random.nextInt(9), product.getPrice()));
+                default -> cart.findItem(product.getId()).ifPresent(cart::removeItem);
+            }
+            cart.verifyTotalAmount();
+        }
+
+        Money incremental = cart.getTotalAmount();
+        cart.updateTotalAmount();
+        assertEquals(cart.getTotalAmount(), incremental);
+    }
+
+    @Test
+    void verifyTotalAmount_shouldCatchALineChangedBehindTheCartsBack() {
+        Cart cart = new Cart();
+        CartItem line = cart.addQuantity(product(1L, "10"), 1);
+
+        line.setQuantity(2);
+
+        assertThrows(IllegalStateException.class, cart::verifyTotalAmount);
+    }
+
+    @Test
+    void findItem_shouldCorrectAStaleStoredTotalWhenTheIndexIsBuilt() {
+        Cart cart = new Cart();
+        Set<CartItem> items = new HashSet<>();
+        CartItem line = new CartItem();
+        line.setProduct(product(1L, "10"));
+        line.setUnitPrice(Money.of("10"));
+        line.setQuantity(3);
+        items.add(line);
+        cart.setItems(items);
+        // as loaded after a line was deleted in bulk without touching the cart
+        cart.setTotalAmount(Money.of("45"));
+
+        assertSame(line, cart.findItem(1L).orElseThrow());
+        assertEquals(Money.of("30"), cart.getTotalAmount());
+    }
+
+    private static Product product(Long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(Money.of(price));
+        return product;
+    }
+}
@@ -0,0 +1,73 @@
+package com.sultan.springshop.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart total recomputation, the old BigDecimal stream against the long-cents
+ * loop. Run with {@code -prof gc} for the bytes allocated per total.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({ "5", "50", "500" })
+    private int cartSize;
+
+    private Cart cart;
+    private List<BigDecimal> unitPrices;
+    private List<Integer> quantities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        cart = new Cart();
+        unitPrices = new ArrayList<>();
+        quantities = new ArrayList<>();
+        for (int i = 0; i < cartSize; i++) {
+            Money price = Money.ofMinor(99 + random.nextInt(100_000));
+            int quantity = 1 + random.nextInt(5);
+            CartItem item = new CartItem();
+            item.setUnitPrice(price);
+            item.setQuantity(quantity);
+            cart.getItems().add(item);
+            unitPrices.add(price.toBigDecimal());
+            quantities.add(quantity);
+        }
+    }
+
+    // the shape of the previous Cart.updateTotalAmount
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < unitPrices.size(); i++) {
+            total = total.add(unitPrices.get(i).multiply(BigDecimal.valueOf(quantities.get(i))));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money money() {
+        cart.updateTotalAmount();
+        return cart.getTotalAmount();
+    }
+}
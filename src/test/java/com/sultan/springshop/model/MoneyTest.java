@@ -0,0 +1,58 @@
+package com.sultan.springshop.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void of_shouldKeepExactCentsAndRejectFractionsOfACent() {
+        assertEquals(1999, Money.of("19.99").minorUnits());
+        assertEquals(Money.of("10"), Money.of(new BigDecimal("10.00")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of("0.005"));
+    }
+
+    @Test
+    void arithmetic_shouldBeExact() {
+        // 0.1 + 0.2 and 19.99 * 100 both go wrong through double
+        assertEquals(Money.of("0.30"), Money.of("0.10").plus(Money.of("0.20")));
+        assertEquals(199_900, Money.of("19.99").times(100).minorUnits());
+        assertEquals(new BigDecimal("1999.00"), Money.of("19.99").times(100).toBigDecimal());
+    }
+
+    @Test
+    void arithmetic_shouldFailOnOverflowAndMixedCurrencies() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        Money euros = new Money(100, Currency.getInstance("EUR"));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(100).plus(euros));
+    }
+
+    @Test
+    void cartTotal_shouldSumUnitPricesTimesQuantities() {
+        Cart cart = new Cart();
+        cart.addItem(item("19.99", 3));
+        cart.addItem(item("0.10", 7));
+
+        assertEquals(Money.of("60.67"), cart.getTotalAmount());
+    }
+
+    @Test
+    void converter_shouldRoundTripThroughTheNumericColumn() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("12.50"), converter.convertToDatabaseColumn(Money.of("12.5")));
+        assertEquals(Money.of("12.5"), converter.convertToEntityAttribute(new BigDecimal("12.5000")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    private static CartItem item(String unitPrice, int quantity) {
+        CartItem item = new CartItem();
+        item.setUnitPrice(Money.of(unitPrice));
+        item.setQuantity(quantity);
+        return item;
+    }
+}
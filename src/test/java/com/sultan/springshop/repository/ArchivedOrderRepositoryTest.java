@@ -0,0 +1,168 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.dto.OrderSummaryDto;
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.enums.RollupDimension;
+import com.sultan.springshop.model.ArchivedOrder;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import com.sultan.springshop.repository.ArchivedOrderWriteRepository.MovedRows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The archive move and the archive reads against a real Postgres.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class ArchivedOrderRepositoryTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+    private static final Set<OrderStatus> FINISHED = Set.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Product phone;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        phone = entityManager.persist(new Product("Phone", "Acme", Money.of("300"), 10, "", null));
+        charger = entityManager.persist(new Product("Charger", "Acme", Money.of("20"), 10, "", null));
+    }
+
+    @Test
+    void moveOrdersBefore_shouldMoveTheOldestFinishedOrdersWithTheirItems() {
+        Order oldest = saveOrder(MONDAY, OrderStatus.DELIVERED, 2);
+        Order older = saveOrder(MONDAY.plusDays(1), OrderStatus.CANCELLED, 1);
+        Order tooRecent = saveOrder(MONDAY.plusDays(2), OrderStatus.DELIVERED, 1);
+        Order unpaid = saveOrder(MONDAY, OrderStatus.RESERVED, 1);
+        Order beyondLimit = saveOrder(MONDAY.plusDays(1).plusHours(1), OrderStatus.DELIVERED, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        MovedRows moved = archivedOrderRepository.moveOrdersBefore(MONDAY.plusDays(2), FINISHED, 2);
+
+        assertEquals(new MovedRows(2, 3), moved);
+        assertEquals(List.of(tooRecent.getOrderId(), unpaid.getOrderId(), beyondLimit.getOrderId()),
+                orderRepository.findAll().stream().map(Order::getOrderId).sorted().toList());
+        ArchivedOrder archived = archivedOrderRepository.findDetailById(oldest.getOrderId()).orElseThrow();
+        assertEquals(OrderStatus.DELIVERED, archived.getOrderStatus());
+        assertEquals(MONDAY, archived.getOrderDate());
+        assertEquals(Money.of("320"), archived.getTotalAmount());
+        assertNotNull(archived.getArchivedAt());
+        Order copy = archived.toOrder();
+        assertEquals(user.getId(), copy.getUser().getId());
+        assertEquals(2, copy.getOrderItems().size());
+        assertTrue(archivedOrderRepository.existsById(older.getOrderId()));
+    }
+
+    @Test
+    void restoreOrder_shouldMoveAnArchivedOrderBackWithItsItems() {
+        Order delivered = saveOrder(MONDAY, OrderStatus.DELIVERED, 2);
+        entityManager.flush();
+        archivedOrderRepository.moveOrdersBefore(MONDAY.plusDays(1), FINISHED, 10);
+
+        MovedRows restored = archivedOrderRepository.restoreOrder(delivered.getOrderId());
+        MovedRows again = archivedOrderRepository.restoreOrder(delivered.getOrderId());
+        entityManager.clear();
+
+        assertEquals(new MovedRows(1, 2), restored);
+        assertEquals(new MovedRows(0, 0), again);
+        assertFalse(archivedOrderRepository.existsById(delivered.getOrderId()));
+        Order order = orderRepository.findDetailById(delivered.getOrderId()).orElseThrow();
+        assertEquals(OrderStatus.DELIVERED, order.getOrderStatus());
+        assertEquals(Money.of("320"), order.getTotalAmount());
+        assertEquals(2, order.getOrderItems().size());
+    }
+
+    @Test
+    void archiveReads_shouldMirrorTheHotQueries() {
+        Order first = saveOrder(MONDAY, OrderStatus.DELIVERED, 1);
+        Order second = saveOrder(MONDAY.plusDays(1), OrderStatus.DELIVERED, 2);
+        entityManager.flush();
+        archivedOrderRepository.moveOrdersBefore(MONDAY.plusDays(5), FINISHED, 10);
+        entityManager.clear();
+
+        List<OrderSummaryDto> page = archivedOrderRepository.findSummariesByUserId(user.getId(),
+                PageRequest.of(0, 1));
+        List<OrderSummaryDto> next = archivedOrderRepository.findSummariesByUserIdBefore(user.getId(),
+                page.get(0).orderDate(), page.get(0).orderId(), PageRequest.of(0, 1));
+
+        assertEquals(List.of(second.getOrderId()), page.stream().map(OrderSummaryDto::orderId).toList());
+        assertEquals(2L, page.get(0).itemCount());
+        assertEquals(List.of(first.getOrderId()), next.stream().map(OrderSummaryDto::orderId).toList());
+        assertEquals(List.of(second.getOrderId(), first.getOrderId()),
+                archivedOrderRepository.findByUserId(user.getId()).stream().map(ArchivedOrder::getOrderId).toList());
+        assertEquals(List.of(charger.getId(), phone.getId()), archivedOrderRepository.sumUnitsSoldByProduct()
+                .stream().map(ProductRepository.UnitsSold::getProductId).sorted().toList());
+    }
+
+    @Test
+    void analytics_shouldStillCountArchivedOrders() {
+        saveOrder(MONDAY, OrderStatus.DELIVERED, 1);
+        Order newest = saveOrder(MONDAY.plusHours(1), OrderStatus.DELIVERED, 2);
+        entityManager.flush();
+        archivedOrderRepository.moveOrdersBefore(MONDAY.plusDays(1), FINISHED, 10);
+        entityManager.clear();
+
+        assertEquals(newest.getOrderId(), orderRepository.findMaxOrderId());
+        SalesRollupRow day = salesRollupRepository.aggregateOrders(1, newest.getOrderId()).stream()
+                .filter(row -> row.dimension() == RollupDimension.DAY).findFirst().orElseThrow();
+        assertEquals(2, day.orders());
+        assertEquals(3, day.units());
+    }
+
+    private Order saveOrder(LocalDateTime orderDate, OrderStatus status, int lines) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setOrderStatus(status);
+        order.setPaymentStatus(status.paymentStatus());
+        order.getOrderItems().add(new OrderItem(order, phone, 1, phone.getPrice()));
+        if (lines > 1) {
+            order.getOrderItems().add(new OrderItem(order, charger, 1, charger.getPrice()));
+        }
+        order.setTotalAmount(order.getOrderItems().stream().map(OrderItem::getPrice)
+                .reduce(Money.ZERO, Money::plus));
+        return entityManager.persist(order);
+    }
+}
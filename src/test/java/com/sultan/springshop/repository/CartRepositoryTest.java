@@ -0,0 +1,262 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.dto.CartDto;
+import com.sultan.springshop.enums.CartOperationType;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.CartMapper;
+import com.sultan.springshop.mapper.ProductMapper;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import com.sultan.springshop.repository.CartSweepRepository.DeletedRows;
+import com.sultan.springshop.request.CartOperationRequest;
+import com.sultan.springshop.service.cart.CartItemService;
+import com.sultan.springshop.service.cart.CartService;
+import com.sultan.springshop.service.cart.CartWriteBehindStore;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement counts of the cart read, locking and batch update paths against a
+ * real Postgres: a cart of any size, mapped to its DTO, costs one select, and
+ * a batch of any length a fixed handful of statements. Also covers the
+ * abandoned-cart sweep.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class CartRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final CartMapper cartMapper = new CartMapper(new ProductMapper());
+    private CartService cartService;
+    private CartItemService cartItemService;
+    private Statistics statistics;
+    private int users;
+
+    @BeforeEach
+    void setUp() {
+        CartWriteBehindStore cartWriteBehindStore = new CartWriteBehindStore(cartRepository, null, null, null);
+        cartService = new CartService(cartRepository, cartItemRepository, cartMapper, cartWriteBehindStore);
+        cartItemService = new CartItemService(cartItemRepository, cartRepository, productRepository, null,
+                cartService, cartWriteBehindStore, new ProductMapper());
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 50, 500 })
+    void getCart_shouldLoadAndMapACartOfAnySizeInOneSelect(int lines) {
+        Cart saved = saveCart(lines);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        CartDto cart = cartMapper.toDto(cartService.getCart(saved.getId()));
+        entityManager.flush();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(lines, cart.getItems().size());
+        assertTrue(cart.getItems().stream().allMatch(item -> item.getProduct().getCategory() != null));
+        assertEquals(0, new BigDecimal(10 * lines).compareTo(cart.getTotalAmount()));
+    }
+
+    @Test
+    void findByUserId_shouldLoadTheCartInOneSelect() {
+        Cart saved = saveCart(20);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        CartDto cart = cartMapper.toDto(cartRepository.findByUserId(saved.getUser().getId()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(20, cart.getItems().size());
+    }
+
+    @Test
+    void lockById_shouldLockTheRowAndLeaveTheDetailToOneMoreSelect() {
+        Cart saved = saveCart(50);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Cart locked = cartRepository.lockById(saved.getId()).orElseThrow();
+        Cart cart = cartRepository.findDetailById(saved.getId()).orElseThrow();
+        cartMapper.toDto(cart);
+
+        assertSame(locked, cart);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(50, cart.getItems().size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 30, 200 })
+    void applyOperations_shouldAddAnyNumberOfLinesInAFixedNumberOfStatements(int lines) {
+        Cart saved = saveCart(0);
+        List<CartOperationRequest> operations = new ArrayList<>();
+        for (Product product : saveProducts(lines)) {
+            operations.add(new CartOperationRequest(CartOperationType.ADD, product.getId(), 2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        cartItemService.applyOperations(saved.getId(), operations);
+        entityManager.flush();
+
+        // lock, cart detail, products, id block(s), one batched insert, cart total
+        assertTrue(statistics.getPrepareStatementCount() <= 8,
+                () -> statistics.getPrepareStatementCount() + " statements for " + lines + " lines");
+        entityManager.clear();
+        CartDto cart = cartMapper.toDto(cartService.getCart(saved.getId()));
+        assertEquals(lines, cart.getItems().size());
+        assertEquals(0, new BigDecimal(20 * lines).compareTo(cart.getTotalAmount()));
+    }
+
+    @Test
+    void applyOperations_shouldApplyAddsUpdatesAndRemovesInOrder() {
+        Cart saved = saveCart(3);
+        List<Long> productIds = saved.getItems().stream().map(item -> item.getProduct().getId()).sorted().toList();
+        Long added = saveProducts(1).get(0).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Cart cart = cartItemService.applyOperations(saved.getId(), List.of(
+                new CartOperationRequest(CartOperationType.ADD, productIds.get(0), 2),
+                new CartOperationRequest(CartOperationType.UPDATE, productIds.get(1), 5),
+                new CartOperationRequest(CartOperationType.REMOVE, productIds.get(2), null),
+                new CartOperationRequest(CartOperationType.ADD, added, 1),
+                new CartOperationRequest(CartOperationType.UPDATE, added, 4)));
+        entityManager.flush();
+        entityManager.clear();
+
+        Cart stored = cartService.getCart(saved.getId());
+        assertEquals(3, stored.getItems().size());
+        assertEquals(0, new BigDecimal(10 * (3 + 5 + 4)).compareTo(stored.getTotalAmount().toBigDecimal()));
+        assertEquals(stored.getTotalAmount(), cart.getTotalAmount());
+    }
+
+    @Test
+    void applyOperations_shouldRejectAnUnknownProductBeforeTouchingTheCart() {
+        Cart saved = saveCart(1);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        assertThrows(ResourceNotFoundException.class, () -> cartItemService.applyOperations(saved.getId(),
+                List.of(new CartOperationRequest(CartOperationType.ADD, -1L, 1))));
+        assertThrows(IllegalArgumentException.class, () -> cartItemService.applyOperations(saved.getId(),
+                List.of(new CartOperationRequest(CartOperationType.UPDATE, 1L, 0))));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deleteUntouchedBefore_shouldDeleteTheLongestIdleCartsWithTheirItems() {
+        LocalDateTime monday = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Cart oldest = saveCart(3);
+        Cart older = saveCart(0);
+        Cart beyondLimit = saveCart(1);
+        Cart recent = saveCart(2);
+        entityManager.flush();
+        setLastModified(oldest, monday);
+        setLastModified(older, monday.plusDays(1));
+        setLastModified(beyondLimit, monday.plusDays(2));
+        entityManager.clear();
+
+        DeletedRows deleted = cartRepository.deleteUntouchedBefore(LocalDateTime.now().minusDays(1), 2);
+
+        assertEquals(new DeletedRows(2, 3), deleted);
+        assertEquals(List.of(beyondLimit.getId(), recent.getId()),
+                cartRepository.findAll().stream().map(Cart::getId).sorted().toList());
+        assertEquals(3, cartItemRepository.count());
+    }
+
+    @Test
+    void cartEdits_shouldMoveLastModifiedForward() {
+        Cart saved = saveCart(1);
+        entityManager.flush();
+        setLastModified(saved, LocalDateTime.of(2024, 1, 1, 9, 0));
+        entityManager.clear();
+        Long productId = saved.getItems().iterator().next().getProduct().getId();
+
+        cartItemService.updateItemQuantity(saved.getId(), productId, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(cartRepository.findById(saved.getId()).orElseThrow().getLastModified()
+                .isAfter(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    private void setLastModified(Cart cart, LocalDateTime lastModified) {
+        entityManager.getEntityManager().createNativeQuery("UPDATE cart SET last_modified = :at WHERE id = :id")
+                .setParameter("at", lastModified).setParameter("id", cart.getId()).executeUpdate();
+    }
+
+    private List<Product> saveProducts(int count) {
+        Category category = entityManager.persist(new Category("Accessories"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(entityManager.persist(new Product("Extra " + i, "Acme", Money.of("10"), 10, "", category)));
+        }
+        return products;
+    }
+
+    private Cart saveCart(int lines) {
+        User user = new User();
+        user.setEmail("buyer" + (++users) + "@example.com");
+        entityManager.persist(user);
+        Category category = entityManager.persist(new Category("Phones"));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (int i = 0; i < lines; i++) {
+            Product product = entityManager
+                    .persist(new Product("Product " + i, "Acme", Money.of("10"), 10, "", category));
+            CartItem item = new CartItem();
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice();
+            cart.addItem(item);
+        }
+        return entityManager.persist(cart);
+    }
+}
@@ -0,0 +1,125 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderSummaryDto;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.mapper.OrderMapper;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Order history queries against a real Postgres: summary pages in keyset
+ * order and the one-query detail fetch.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class OrderRepositoryTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Product phone;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        User other = new User();
+        other.setEmail("other@example.com");
+        entityManager.persist(other);
+        phone = entityManager.persist(new Product("Phone", "Acme", Money.of("300"), 10, "", null));
+        charger = entityManager.persist(new Product("Charger", "Acme", Money.of("20"), 10, "", null));
+        saveOrder(other, MONDAY.plusDays(9), 1);
+    }
+
+    @Test
+    void findSummaries_shouldPageNewestFirstWithItemCounts() {
+        Order oldest = saveOrder(user, MONDAY, 1);
+        Order tiedFirst = saveOrder(user, MONDAY.plusDays(1), 2);
+        Order tiedSecond = saveOrder(user, MONDAY.plusDays(1), 1);
+        Order newest = saveOrder(user, MONDAY.plusDays(2), 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OrderSummaryDto> first = orderRepository.findSummariesByUserId(user.getId(), PageRequest.of(0, 2));
+        OrderSummaryDto last = first.get(1);
+        List<OrderSummaryDto> second = orderRepository.findSummariesByUserIdBefore(user.getId(), last.orderDate(),
+                last.orderId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(newest.getOrderId(), tiedSecond.getOrderId()),
+                first.stream().map(OrderSummaryDto::orderId).toList());
+        assertEquals(List.of(tiedFirst.getOrderId(), oldest.getOrderId()),
+                second.stream().map(OrderSummaryDto::orderId).toList());
+        assertEquals(2L, first.get(0).itemCount());
+        assertEquals(1L, first.get(1).itemCount());
+        assertEquals(OrderStatus.PENDING, first.get(0).status());
+        assertEquals(0, new BigDecimal("320").compareTo(first.get(0).totalAmount()));
+    }
+
+    @Test
+    void findDetailById_shouldLoadTheWholeDetailViewInOneQuery() {
+        Order order = saveOrder(user, MONDAY, 2);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Order detail = orderRepository.findDetailById(order.getOrderId()).orElseThrow();
+        OrderDto dto = new OrderMapper().toDto(detail);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, dto.getItems().size());
+        assertEquals(user.getId(), dto.getUserId());
+    }
+
+    private Order saveOrder(User owner, LocalDateTime orderDate, int lines) {
+        Order order = new Order();
+        order.setUser(owner);
+        order.setOrderDate(orderDate);
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setPaymentStatus("PENDING");
+        order.getOrderItems().add(new OrderItem(order, phone, 1, phone.getPrice()));
+        if (lines > 1) {
+            order.getOrderItems().add(new OrderItem(order, charger, 1, charger.getPrice()));
+        }
+        order.setTotalAmount(order.getOrderItems().stream().map(OrderItem::getPrice)
+                .reduce(Money.ZERO, Money::plus));
+        return entityManager.persist(order);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.model.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent relays claiming from the outbox. Each claim runs in its own
+ * committed transaction, so the test itself is not transactional.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxEventRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void claimBatch_shouldSkipEventsAnotherRelayHoldsAndNotReturnPublishedOnes() throws Exception {
+        outboxEventRepository.saveAll(IntStream.range(0, 10).mapToObj(i -> new OutboxEvent(
+                UUID.randomUUID().toString(), "Order", String.valueOf(i), "OrderPlaced", "{}", LocalDateTime.now()))
+                .toList());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<Long>> first = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            List<Long> ids = outboxEventRepository.claimBatch(4).stream().map(OutboxEvent::getId).toList();
+            claimed.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outboxEventRepository.markPublished(ids, LocalDateTime.now());
+            return ids;
+        }));
+        assertTrue(claimed.await(10, TimeUnit.SECONDS));
+        List<Long> second = transaction.execute(
+                status -> outboxEventRepository.claimBatch(100).stream().map(OutboxEvent::getId).toList());
+        release.countDown();
+        List<Long> firstIds = first.get(10, TimeUnit.SECONDS);
+
+        assertEquals(4, firstIds.size());
+        assertEquals(6, second.size());
+        Set<Long> all = new HashSet<>(firstIds);
+        all.addAll(second);
+        assertEquals(10, all.size());
+        List<Long> remaining = transaction.execute(
+                status -> outboxEventRepository.claimBatch(100).stream().map(OutboxEvent::getId).toList());
+        assertEquals(Set.copyOf(second), Set.copyOf(remaining));
+    }
+}
@@ -0,0 +1,137 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires thousands of concurrent orders at the same products against a real
+ * Postgres and checks that stock never goes below zero.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductInventoryRepositoryTest {
+
+    private static final int ORDERS = 2_000;
+    private static final int THREADS = 32;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void decrementInventory_shouldNeverOversellUnderConcurrentOrders() throws Exception {
+        Long productId = saveProduct("Flash sale phone", 100);
+
+        int placed = placeConcurrently(i -> Map.of(productId, 1));
+
+        assertEquals(100, placed);
+        assertEquals(0, inventory(productId));
+    }
+
+    @Test
+    void decrementInventory_shouldTakeNothingFromAnOrderWithAShortLine() throws Exception {
+        Long phoneId = saveProduct("Phone", 500);
+        Long caseId = saveProduct("Phone case", 50);
+
+        // every order wants both products, listed in alternating order to provoke lock-order deadlocks
+        int placed = placeConcurrently(i -> {
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            if (i % 2 == 0) {
+                lines.put(phoneId, 2);
+                lines.put(caseId, 1);
+            } else {
+                lines.put(caseId, 1);
+                lines.put(phoneId, 2);
+            }
+            return lines;
+        });
+
+        assertEquals(50, placed);
+        assertEquals(0, inventory(caseId));
+        assertEquals(500 - 2 * 50, inventory(phoneId));
+    }
+
+    @Test
+    void decrementInventory_shouldReportOnlyTheShortProducts() {
+        Long phoneId = saveProduct("Phone", 5);
+        Long caseId = saveProduct("Phone case", 1);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Set<Long> insufficient = transaction.execute(status -> {
+            status.setRollbackOnly();
+            return productRepository.decrementInventory(Map.of(phoneId, 2, caseId, 3));
+        });
+
+        assertEquals(Set.of(caseId), insufficient);
+        assertEquals(5, inventory(phoneId));
+        assertEquals(1, inventory(caseId));
+    }
+
+    // places ORDERS orders in parallel, each in its own transaction, and returns how many went through
+    private int placeConcurrently(IntFunction<Map<Long, Integer>> order) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Boolean>> orders = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                Map<Long, Integer> lines = order.apply(i);
+                orders.add(() -> transaction.execute(status -> {
+                    boolean placed = productRepository.decrementInventory(lines).isEmpty();
+                    if (!placed) {
+                        status.setRollbackOnly();
+                    }
+                    return placed;
+                }));
+            }
+            int placed = 0;
+            for (Future<Boolean> result : executor.invokeAll(orders)) {
+                placed += result.get() ? 1 : 0;
+            }
+            return placed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Long saveProduct(String name, int inventory) {
+        return productRepository.save(new Product(name, "Acme", Money.of("9.99"), inventory, "", null))
+                .getId();
+    }
+
+    private int inventory(Long productId) {
+        return productRepository.findInventoryByIds(List.of(productId)).get(productId);
+    }
+}
@@ -0,0 +1,105 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks the keyset pagination queries page by page against a real Postgres,
+ * with many products sharing the same sort key and some without one.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class ProductRepositoryTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 3);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // page boundaries fall inside runs of equal prices and names, and of missing ones
+        String[] names = { "Cable", "Phone", null, "Cable", "Case", null, "Cable", "Phone", "Case", null, "Cable" };
+        String[] prices = { "10", null, "300", "10", "15", null, "10", "300", null, "15", "10" };
+        for (int i = 0; i < names.length; i++) {
+            Money price = prices[i] == null ? null : Money.of(prices[i]);
+            products.add(entityManager.persist(new Product(names[i], "Acme", price, 5, "", null)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findPageAfterId_shouldVisitEveryProductOnceInIdOrder() {
+        List<Long> visited = new ArrayList<>();
+        List<Product> page = productRepository.findPageAfterId(0L, PAGE);
+        while (!page.isEmpty()) {
+            page.forEach(product -> visited.add(product.getId()));
+            page = productRepository.findPageAfterId(page.get(page.size() - 1).getId(), PAGE);
+        }
+
+        assertEquals(expectedIds(Comparator.comparing(Product::getId)), visited);
+    }
+
+    @Test
+    void findPageAfterPrice_shouldBreakTiesOnIdAndPutMissingPricesLast() {
+        List<Long> visited = new ArrayList<>();
+        List<Product> page = productRepository.findAllByOrderByPriceAscIdAsc(PAGE);
+        while (!page.isEmpty()) {
+            page.forEach(product -> visited.add(product.getId()));
+            Product last = page.get(page.size() - 1);
+            page = last.getPrice() == null ? productRepository.findPageAfterNullPrice(last.getId(), PAGE)
+                    : productRepository.findPageAfterPrice(last.getPrice(), last.getId(), PAGE);
+        }
+
+        assertEquals(expectedIds(Comparator.comparing(Product::getPrice,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Product::getId)), visited);
+    }
+
+    @Test
+    void findPageAfterName_shouldBreakTiesOnIdAndPutMissingNamesLast() {
+        List<Long> visited = new ArrayList<>();
+        List<Product> page = productRepository.findAllByOrderByNameAscIdAsc(PAGE);
+        while (!page.isEmpty()) {
+            page.forEach(product -> visited.add(product.getId()));
+            Product last = page.get(page.size() - 1);
+            page = last.getName() == null ? productRepository.findPageAfterNullName(last.getId(), PAGE)
+                    : productRepository.findPageAfterName(last.getName(), last.getId(), PAGE);
+        }
+
+        assertEquals(expectedIds(Comparator.comparing(Product::getName,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Product::getId)), visited);
+    }
+
+    private List<Long> expectedIds(Comparator<Product> order) {
+        return products.stream().sorted(order).map(Product::getId).toList();
+    }
+}
@@ -0,0 +1,127 @@
+package com.sultan.springshop.repository;
+
+import com.sultan.springshop.dto.DailySalesDto;
+import com.sultan.springshop.dto.SalesBreakdownDto;
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The rollup upsert, the backfill reads and the report queries against
+ * a real Postgres.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class SalesRollupRepositoryTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void aggregateOrdersAndAddAll_shouldBuildReportsThatAddUp() {
+        Category phones = entityManager.persist(new Category("Phones"));
+        Product phone = entityManager.persist(new Product("Phone", "Acme", Money.of("300"), 10, "", phones));
+        Product cable = entityManager.persist(new Product("Cable", "Acme", Money.of("10"), 10, "", null));
+        User user = new User();
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        saveOrder(user, MONDAY.atTime(9, 0), "PAID", new OrderItem(null, phone, 1, phone.getPrice()),
+                new OrderItem(null, cable, 2, cable.getPrice()));
+        saveOrder(user, MONDAY.atTime(18, 0), "PENDING", new OrderItem(null, cable, 1, cable.getPrice()));
+        saveOrder(user, MONDAY.plusDays(1).atTime(8, 0), "PENDING",
+                new OrderItem(null, phone, 2, phone.getPrice()));
+        entityManager.flush();
+
+        List<SalesRollupRow> rows = salesRollupRepository.aggregateOrders(1, orderRepository.findMaxOrderId());
+        salesRollupRepository.addAll(rows);
+        // a second add must sum onto the same rows rather than duplicate them
+        salesRollupRepository.addAll(rows);
+        entityManager.clear();
+
+        List<DailySalesDto> daily = salesRollupRepository.findDailySales(MONDAY, MONDAY.plusDays(1));
+        assertEquals(2, daily.size());
+        DailySalesDto monday = daily.get(0);
+        assertEquals(MONDAY, monday.day());
+        assertEquals(4, monday.orders());
+        assertEquals(8, monday.units());
+        assertEquals(0, new BigDecimal("660").compareTo(monday.revenue()));
+        assertEquals(2, monday.paidOrders());
+        assertEquals(0, new BigDecimal("640").compareTo(monday.paidRevenue()));
+
+        List<SalesBreakdownDto> products = salesRollupRepository.findTopProducts(MONDAY, MONDAY.plusDays(1),
+                PageRequest.of(0, 1));
+        assertEquals(List.of("Phone"), products.stream().map(SalesBreakdownDto::name).toList());
+        assertEquals(0, new BigDecimal("1800").compareTo(products.get(0).revenue()));
+
+        List<SalesBreakdownDto> categories = salesRollupRepository.findCategorySales(MONDAY, MONDAY);
+        assertEquals(List.of("Phones", "Uncategorized"), categories.stream().map(SalesBreakdownDto::name).toList());
+        assertEquals(4L, categories.get(1).orders());
+    }
+
+    @Test
+    void findPaidByOrderId_shouldReturnTheOrdersOfTheRangeAndWhetherTheyArePaid() {
+        User user = new User();
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        Order paid = saveOrder(user, MONDAY.atTime(9, 0), "PAID");
+        Order pending = saveOrder(user, MONDAY.atTime(10, 0), "PENDING");
+        Order outside = saveOrder(user, MONDAY.atTime(11, 0), "PAID");
+        entityManager.flush();
+
+        Map<Long, Boolean> paidByOrderId = salesRollupRepository.findPaidByOrderId(paid.getOrderId(),
+                pending.getOrderId());
+
+        assertEquals(Map.of(paid.getOrderId(), true, pending.getOrderId(), false), paidByOrderId);
+        assertFalse(paidByOrderId.containsKey(outside.getOrderId()));
+    }
+
+    private Order saveOrder(User user, LocalDateTime orderDate, String paymentStatus, OrderItem... items) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setPaymentStatus(paymentStatus);
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            order.getOrderItems().add(item);
+        }
+        order.setTotalAmount(Money.ZERO);
+        return entityManager.persist(order);
+    }
+}
@@ -0,0 +1,147 @@
+package com.sultan.springshop.service.analytics;
+
+import com.sultan.springshop.dto.SalesRollupRow;
+import com.sultan.springshop.enums.RollupDimension;
+import com.sultan.springshop.repository.OrderRepository;
+import com.sultan.springshop.repository.SalesRollupRepository;
+import com.sultan.springshop.service.analytics.SalesEvent.SaleLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesRollupWriterTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private SalesRollupWriter writer;
+
+    @Test
+    void flush_shouldWriteTheSumOfAllRecordedSalesInOneBatch() {
+        writer.record(placed(1L, line(10L, 3L, 2, "50")));
+        writer.record(placed(2L, line(10L, 3L, 1, "25"), line(11L, 4L, 1, "5")));
+        writer.record(paid(1L, line(10L, 3L, 2, "50")));
+
+        writer.flush();
+
+        Map<SalesRollupRow.Key, SalesRollupRow> rows = flushedRows();
+        SalesRollupRow day = rows.get(new SalesRollupRow.Key(RollupDimension.DAY, 0, MONDAY));
+        assertEquals(2, day.orders());
+        assertEquals(4, day.units());
+        assertEquals(0, new BigDecimal("80").compareTo(day.revenue()));
+        assertEquals(1, day.paidOrders());
+        assertEquals(0, new BigDecimal("50").compareTo(day.paidRevenue()));
+        SalesRollupRow product = rows.get(new SalesRollupRow.Key(RollupDimension.PRODUCT, 10L, MONDAY));
+        assertEquals(2, product.orders());
+        assertEquals(3, product.units());
+        assertEquals(1, rows.get(new SalesRollupRow.Key(RollupDimension.CATEGORY, 4L, MONDAY)).orders());
+        assertEquals(5, rows.size());
+    }
+
+    @Test
+    void flush_shouldKeepTheSalesForTheNextFlushWhenTheWriteFails() {
+        doThrow(new IllegalStateException("database down")).doNothing().when(salesRollupRepository).addAll(any());
+        writer.record(placed(1L, line(10L, 3L, 2, "50")));
+
+        writer.flush();
+        writer.flush();
+
+        verify(salesRollupRepository, times(2)).addAll(any());
+    }
+
+    @Test
+    void backfill_shouldRebuildInChunksAndSkipSalesItAlreadyCounted() {
+        writer.record(placed(1L, line(10L, 3L, 2, "50")));
+        when(orderRepository.findMaxOrderId()).thenReturn(SalesRollupWriter.BACKFILL_CHUNK_SIZE + 5L);
+        when(salesRollupRepository.findPaidByOrderId(anyLong(), anyLong())).thenReturn(Map.of());
+        when(salesRollupRepository.findPaidByOrderId(1, SalesRollupWriter.BACKFILL_CHUNK_SIZE))
+                .thenReturn(Map.of(1L, false, 2L, true, 3L, false));
+        when(salesRollupRepository.aggregateOrders(anyLong(), anyLong()))
+                .thenReturn(List.of(new SalesRollupRow(RollupDimension.DAY, 0, MONDAY, 1, 1, BigDecimal.ONE, 0, 0,
+                        BigDecimal.ZERO)));
+
+        int rows = writer.backfill();
+
+        assertEquals(2, rows);
+        verify(salesRollupRepository).deleteAllInBatch();
+        verify(salesRollupRepository).aggregateOrders(1, SalesRollupWriter.BACKFILL_CHUNK_SIZE);
+        verify(salesRollupRepository).aggregateOrders(SalesRollupWriter.BACKFILL_CHUNK_SIZE + 1,
+                2L * SalesRollupWriter.BACKFILL_CHUNK_SIZE);
+        // each range is read in its own snapshot
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+
+        // the rebuild saw these orders placed, and order 2 paid: already in the rebuilt rollups
+        writer.record(placed(2L, line(10L, 3L, 1, "25")));
+        writer.record(paid(2L, line(10L, 3L, 1, "25")));
+        // a payment the rebuild did not see, and an order newer than the rebuild, still count
+        writer.record(paid(3L, line(10L, 3L, 1, "25")));
+        writer.record(placed(SalesRollupWriter.BACKFILL_CHUNK_SIZE + 6L, line(11L, 4L, 1, "5")));
+        clearInvocations(salesRollupRepository);
+        writer.flush();
+
+        SalesRollupRow day = flushedRows().get(new SalesRollupRow.Key(RollupDimension.DAY, 0, MONDAY));
+        assertEquals(1, day.orders());
+        assertEquals(1, day.paidOrders());
+    }
+
+    @Test
+    void toRows_shouldCountAnOrderOncePerRowWhateverItsLines() {
+        List<SalesRollupRow> rows = placed(1L, line(10L, 3L, 1, "5"), line(11L, 3L, 2, "6")).toRows();
+
+        SalesRollupRow category = rows.stream().filter(row -> row.dimension() == RollupDimension.CATEGORY)
+                .findFirst().orElseThrow();
+        assertEquals(1, category.orders());
+        assertEquals(3, category.units());
+        assertEquals(0, new BigDecimal("11").compareTo(category.revenue()));
+        assertEquals(4, rows.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<SalesRollupRow.Key, SalesRollupRow> flushedRows() {
+        ArgumentCaptor<Collection<SalesRollupRow>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(salesRollupRepository).addAll(rows.capture());
+        return rows.getValue().stream().collect(Collectors.toMap(SalesRollupRow::key, Function.identity()));
+    }
+
+    private static SalesEvent placed(Long orderId, SaleLine... lines) {
+        return new SalesEvent(orderId, MONDAY, false, List.of(lines));
+    }
+
+    private static SalesEvent paid(Long orderId, SaleLine... lines) {
+        return new SalesEvent(orderId, MONDAY, true, List.of(lines));
+    }
+
+    private static SaleLine line(Long productId, long categoryId, int quantity, String revenue) {
+        return new SaleLine(productId, categoryId, quantity, new BigDecimal(revenue));
+    }
+}
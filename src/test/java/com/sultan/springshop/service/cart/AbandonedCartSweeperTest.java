@@ -0,0 +1,87 @@
+package com.sultan.springshop.service.cart;
+
+import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.CartSweepRepository.DeletedRows;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AbandonedCartSweeperTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AbandonedCartSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new AbandonedCartSweeper(cartRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "sweepAfter", Duration.ofDays(30));
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(sweeper, "intervalMinutes", 60L);
+        sweeper.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweeper.shutdown();
+    }
+
+    @Test
+    void sweep_shouldDeleteBatchesUntilOneComesBackShort() {
+        when(cartRepository.deleteUntouchedBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(new DeletedRows(2, 7), new DeletedRows(2, 0), new DeletedRows(1, 3));
+
+        assertEquals(5, sweeper.sweep());
+
+        verify(cartRepository, times(3)).deleteUntouchedBefore(any(LocalDateTime.class), eq(2));
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(5, meterRegistry.get("carts.sweep.rows").tag("table", "cart").counter().count());
+        assertEquals(10, meterRegistry.get("carts.sweep.rows").tag("table", "cart_item").counter().count());
+        assertEquals(3, meterRegistry.get("carts.sweep.batch.duration").timer().count());
+    }
+
+    @Test
+    void sweep_shouldOnlyTakeCartsIdleLongerThanTheCutoff() {
+        when(cartRepository.deleteUntouchedBefore(any(LocalDateTime.class), eq(2))).thenReturn(new DeletedRows(0, 0));
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+
+        assertEquals(0, sweeper.sweep());
+
+        verify(cartRepository).deleteUntouchedBefore(
+                argThat(cutoff -> !cutoff.isBefore(before) && cutoff.isBefore(LocalDateTime.now().minusDays(29))),
+                eq(2));
+    }
+
+    @Test
+    void sweep_shouldStopAtAFailedBatchAndKeepWhatWasDeleted() {
+        when(cartRepository.deleteUntouchedBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(new DeletedRows(2, 2)).thenThrow(new IllegalStateException("deadlock"));
+
+        assertEquals(2, sweeper.sweep());
+
+        verify(transactionManager).rollback(any());
+        assertEquals(2, meterRegistry.get("carts.sweep.rows").tag("table", "cart").counter().count());
+    }
+}
@@ -0,0 +1,98 @@
+package com.sultan.springshop.service.cart;
+
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.mapper.ProductMapper;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.CartItemRepository;
+import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.product.IProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CartItemServiceTest {
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private IProductService productService;
+
+    @Mock
+    private ICartService cartService;
+
+    @Mock
+    private CartWriteBehindStore cartWriteBehindStore;
+
+    @Spy
+    private ProductMapper productMapper = new ProductMapper();
+
+    @InjectMocks
+    private CartItemService cartItemService;
+
+    @Test
+    void addItemToCart_shouldPriceTheLineFromTheCacheAndOnlyReferenceTheProduct() {
+        Product reference = new Product();
+        reference.setId(1L);
+        when(productService.getProductDtoById(1L)).thenReturn(phone());
+        when(productRepository.getReferenceById(1L)).thenReturn(reference);
+        when(cartService.getCartForUpdate(3L)).thenReturn(new Cart());
+
+        cartItemService.addItemToCart(3L, 1L, 2);
+
+        ArgumentCaptor<CartItem> item = ArgumentCaptor.forClass(CartItem.class);
+        verify(cartItemRepository).save(item.capture());
+        assertSame(reference, item.getValue().getProduct());
+        assertEquals(Money.of("300"), item.getValue().getUnitPrice());
+        verify(productService, never()).getProductById(anyLong());
+        verify(productRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void addItemToCart_shouldHandTheWriteBehindStoreACachedProduct() {
+        when(cartWriteBehindStore.isEnabled()).thenReturn(true);
+        when(productService.getProductDtoById(1L)).thenReturn(phone());
+
+        cartItemService.addItemToCart(3L, 1L, 2);
+
+        ArgumentCaptor<Product> product = ArgumentCaptor.forClass(Product.class);
+        verify(cartWriteBehindStore).addItem(eq(3L), product.capture(), eq(2));
+        assertEquals(1L, product.getValue().getId());
+        assertEquals("Phone", product.getValue().getName());
+        assertEquals(Money.of("300"), product.getValue().getPrice());
+        verify(productService, never()).getProductById(anyLong());
+        verify(cartService, never()).getCartForUpdate(any());
+    }
+
+    private static ProductDto phone() {
+        ProductDto phone = new ProductDto();
+        phone.setId(1L);
+        phone.setName("Phone");
+        phone.setBrand("Acme");
+        phone.setPrice(new BigDecimal("300"));
+        return phone;
+    }
+}
@@ -0,0 +1,184 @@
+package com.sultan.springshop.service.cart;
+
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import com.sultan.springshop.repository.CartRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CartWriteBehindStoreTest {
+
+    private static final Product PHONE = product(1L, "300");
+    private static final Product CHARGER = product(2L, "20");
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartWriteBehindStore store;
+    // what the database holds, by cart id
+    private final Map<Long, Cart> stored = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new CartWriteBehindStore(cartRepository, productRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "flushIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(store, "batchSize", 10);
+        ReflectionTestUtils.setField(store, "maxCarts", 2);
+        ReflectionTestUtils.setField(store, "lockStripes", 4);
+        store.start();
+        lenient().when(cartRepository.findDetailById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))));
+        lenient().when(cartRepository.lockById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<Long>getArgument(0))));
+        lenient().when(productRepository.findAllById(any())).thenReturn(List.of(PHONE, CHARGER));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        store.shutdown();
+    }
+
+    @Test
+    void edits_shouldBeServedFromMemoryAndCoalesceIntoOneWrite() {
+        stored.put(1L, cart(1L, 5L, PHONE, 1));
+
+        store.addItem(1L, CHARGER, 2);
+        store.addItem(1L, CHARGER, 1);
+        store.updateQuantity(1L, PHONE, 4);
+        Cart pending = store.find(1L).orElseThrow();
+
+        assertEquals(Money.of("1260"), pending.getTotalAmount());
+        verify(cartRepository, never()).lockById(anyLong());
+        assertEquals(Money.of("300"), stored.get(1L).getTotalAmount());
+
+        store.flushAll();
+
+        verify(cartRepository, times(1)).lockById(1L);
+        verify(productRepository, times(1)).findAllById(any());
+        Cart written = stored.get(1L);
+        assertEquals(Money.of("1260"), written.getTotalAmount());
+        assertEquals(Map.of(1L, 4, 2L, 3), quantities(written));
+        assertEquals(1, meterRegistry.get("carts.write-behind.carts").tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    void removeItem_shouldDropTheRowOnFlushAndRejectAMissingLine() {
+        stored.put(1L, cart(1L, 5L, PHONE, 1));
+
+        store.removeItem(1L, PHONE.getId());
+        assertThrows(ResourceNotFoundException.class, () -> store.removeItem(1L, PHONE.getId()));
+        store.flushAll();
+
+        assertTrue(stored.get(1L).getItems().isEmpty());
+        assertEquals(Money.ZERO, stored.get(1L).getTotalAmount());
+    }
+
+    @Test
+    void flushUser_shouldWriteThatUsersCartRightAway() {
+        stored.put(1L, cart(1L, 5L, PHONE, 1));
+        store.addItem(1L, CHARGER, 1);
+
+        store.flushUser(5L);
+        store.flushUser(5L);
+        store.flushUser(6L);
+
+        verify(cartRepository, times(1)).lockById(1L);
+        assertEquals(Map.of(1L, 1, 2L, 1), quantities(stored.get(1L)));
+    }
+
+    @Test
+    void flushAll_shouldKeepACartDirtyWhenItsWriteFails() {
+        stored.put(1L, cart(1L, 5L, PHONE, 1));
+        store.addItem(1L, CHARGER, 1);
+        when(cartRepository.lockById(1L)).thenThrow(new IllegalStateException("connection reset"))
+                .thenAnswer(invocation -> Optional.of(stored.get(1L)));
+
+        store.flushAll();
+        store.flushAll();
+
+        verify(transactionManager).rollback(any());
+        assertEquals(Map.of(1L, 1, 2L, 1), quantities(stored.get(1L)));
+        assertEquals(1, meterRegistry.get("carts.write-behind.carts").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void edits_shouldOnlyEvictCleanCartsOverTheBound() {
+        for (long cartId = 1; cartId <= 4; cartId++) {
+            stored.put(cartId, cart(cartId, cartId + 10, PHONE, 1));
+        }
+        store.addItem(1L, CHARGER, 1);
+        store.addItem(2L, CHARGER, 1);
+        store.addItem(3L, CHARGER, 1);
+        // all three are dirty, so none may go
+        assertEquals(3, store.size());
+
+        store.flushAll();
+        store.addItem(4L, CHARGER, 1);
+
+        assertEquals(2, store.size());
+        assertTrue(store.find(1L).isEmpty());
+        assertTrue(store.find(2L).isEmpty());
+        assertTrue(store.find(3L).isPresent());
+        assertEquals(Map.of(1L, 1, 2L, 1), quantities(stored.get(2L)));
+    }
+
+    private static Map<Long, Integer> quantities(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        cart.getItems().forEach(item -> quantities.put(item.getProduct().getId(), item.getQuantity()));
+        return quantities;
+    }
+
+    private static Cart cart(Long cartId, Long userId, Product product, int quantity) {
+        User user = new User();
+        user.setId(userId);
+        Cart cart = new Cart();
+        cart.setId(cartId);
+        cart.setUser(user);
+        CartItem item = new CartItem();
+        item.setId(cartId * 100);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getPrice());
+        item.setTotalPrice();
+        cart.addItem(item);
+        return cart;
+    }
+
+    private static Product product(Long id, String price) {
+        Product product = new Product("Product " + id, "Acme", Money.of(price), 10, "", null);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,170 @@
+package com.sultan.springshop.service.idempotency;
+
+import com.sultan.springshop.exceptions.IdempotencyKeyInProgressException;
+import com.sultan.springshop.exceptions.IdempotencyKeyReuseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private IdempotencyStore store;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(nanos::get);
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(store, "maxEntries", 100L);
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofSeconds(5));
+        store.start();
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void execute_shouldReplayTheFirstResponseForTheSameKey() {
+        ResponseEntity<String> first = store.execute("order", "key-1", "5", this::created);
+        ResponseEntity<String> replay = store.execute("order", "key-1", "5", this::created);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getBody(), replay.getBody());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_shouldRunEveryRequestWithoutAKey() {
+        store.execute("order", null, "5", this::created);
+        store.execute("order", " ", "5", this::created);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void execute_shouldKeepScopesApart() {
+        store.execute("order", "key-1", "5", this::created);
+        store.execute("checkout-session", "key-1", "5", this::created);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldRejectAKeyReusedForADifferentRequest() {
+        store.execute("order", "key-1", "5", this::created);
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> store.execute("order", "key-1", "6", this::created));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldLetServerErrorsBeRetried() {
+        store.execute("order", "key-1", "5", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("failed");
+        });
+        ResponseEntity<String> retry = store.execute("order", "key-1", "5", this::created);
+
+        assertEquals(2, calls.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+    }
+
+    @Test
+    void execute_shouldLetAThrowingRequestBeRetried() {
+        assertThrows(IllegalStateException.class, () -> store.execute("order", "key-1", "5", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        store.execute("order", "key-1", "5", this::created);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldCoalesceConcurrentDuplicates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> original = CompletableFuture
+                .supplyAsync(() -> store.execute("order", "key-1", "5", () -> {
+                    started.countDown();
+                    await(release);
+                    return created();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<String>> duplicate = CompletableFuture
+                .supplyAsync(() -> store.execute("order", "key-1", "5", this::created));
+
+        assertThrows(Exception.class, () -> duplicate.get(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+
+        assertEquals(original.get(5, TimeUnit.SECONDS).getBody(), duplicate.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldGiveUpWaitingOnAStuckOriginal() throws Exception {
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> store.execute("order", "key-1", "5", () -> {
+            started.countDown();
+            await(release);
+            return created();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> store.execute("order", "key-1", "5", this::created));
+        release.countDown();
+    }
+
+    @Test
+    void execute_shouldHoldNoMoreThanMaxEntries() {
+        for (int i = 0; i < 500; i++) {
+            store.execute("order", "key-" + i, "5", this::created);
+        }
+
+        assertTrue(store.size() <= 100, () -> store.size() + " entries");
+    }
+
+    @Test
+    void execute_shouldRunAKeyAgainOnceItsResponseExpired() {
+        store.execute("order", "key-1", "5", this::created);
+
+        nanos.addAndGet(Duration.ofMinutes(59).toNanos());
+        store.execute("order", "key-1", "5", this::created);
+        assertEquals(1, calls.get());
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        ResponseEntity<String> rerun = store.execute("order", "key-1", "5", this::created);
+        assertEquals(2, calls.get());
+        assertEquals("order-2", rerun.getBody());
+        assertNull(rerun.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, store.size());
+    }
+
+    private ResponseEntity<String> created() {
+        return ResponseEntity.status(HttpStatus.CREATED).body("order-" + calls.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.dto.OrderTicketDto;
+import com.sultan.springshop.enums.OrderTicketStatus;
+import com.sultan.springshop.exceptions.InsufficientStockException;
+import com.sultan.springshop.exceptions.InsufficientStockException.StockShortage;
+import com.sultan.springshop.exceptions.OrderQueueFullException;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.service.cart.ICartService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AsyncOrderPipelineTest {
+
+    @Mock
+    private IOrderService orderService;
+
+    @Mock
+    private ICartService cartService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncOrderPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new AsyncOrderPipeline(orderService, cartService, meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "workers", 1);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 50);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "ticketTtl", Duration.ofHours(1));
+        when(cartService.getCartByUserId(anyLong())).thenAnswer(invocation -> cartWithOneItem());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void submit_shouldQueueATicketAndCompleteItWithThePlacedOrder() throws Exception {
+        when(orderService.placeOrders(anyList())).thenAnswer(invocation -> placed(invocation.getArgument(0)));
+        pipeline.start();
+
+        OrderTicketDto queued = pipeline.submit(5L);
+        OrderTicketDto done = pipeline.whenDone(queued.ticketId()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(OrderTicketStatus.QUEUED, queued.status());
+        assertEquals(OrderTicketStatus.PLACED, done.status());
+        assertEquals(5L * 100, done.orderId());
+        assertEquals(done, pipeline.getTicket(queued.ticketId()));
+        assertEquals(1.0, meterRegistry.get("orders.async.orders").tag("outcome", "placed").counter().count());
+    }
+
+    @Test
+    void submit_shouldPlaceEverythingQueuedUpInOneBatch() throws Exception {
+        CountDownLatch release = holdFirstBatch(invocation -> placed(invocation.getArgument(0)));
+        OrderTicketDto second = pipeline.submit(6L);
+        OrderTicketDto third = pipeline.submit(7L);
+
+        release.countDown();
+
+        pipeline.whenDone(second.ticketId()).get(5, TimeUnit.SECONDS);
+        assertEquals(700L, pipeline.whenDone(third.ticketId()).get(5, TimeUnit.SECONDS).orderId());
+        verify(orderService).placeOrders(List.of(6L, 7L));
+    }
+
+    @Test
+    void submit_shouldReportTheShortLinesOfAFailedOrder() throws Exception {
+        InsufficientStockException shortage = new InsufficientStockException(
+                List.of(new StockShortage(1L, "Phone", 2, 0)));
+        when(orderService.placeOrders(anyList())).thenReturn(List.of(OrderPlacement.failed(shortage)));
+        pipeline.start();
+
+        OrderTicketDto done = pipeline.whenDone(pipeline.submit(5L).ticketId()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(OrderTicketStatus.FAILED, done.status());
+        assertEquals(shortage.getShortages(), done.shortages());
+        assertNull(done.orderId());
+        assertEquals(1.0, meterRegistry.get("orders.async.orders").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void submit_shouldRejectAnEmptyCartAndAFullQueue() throws Exception {
+        CountDownLatch release = holdFirstBatch(invocation -> placed(invocation.getArgument(0)));
+        when(cartService.getCartByUserId(9L)).thenReturn(null);
+        pipeline.submit(6L);
+        pipeline.submit(7L);
+
+        assertThrows(ResourceNotFoundException.class, () -> pipeline.submit(9L));
+        assertThrows(OrderQueueFullException.class, () -> pipeline.submit(8L));
+        assertEquals(2.0, meterRegistry.get("orders.async.queue.depth").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void evictExpired_shouldForgetFinishedTicketsAfterTheirTtl() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "ticketTtl", Duration.ZERO);
+        when(orderService.placeOrders(anyList())).thenAnswer(invocation -> placed(invocation.getArgument(0)));
+        pipeline.start();
+        String ticketId = pipeline.submit(5L).ticketId();
+        pipeline.whenDone(ticketId).get(5, TimeUnit.SECONDS);
+
+        pipeline.evictExpired();
+
+        assertThrows(ResourceNotFoundException.class, () -> pipeline.getTicket(ticketId));
+    }
+
+    /**
+     * Starts the pipeline and keeps user 5's order in flight until the returned
+     * latch is released, so the orders submitted meanwhile queue up behind it.
+     * Every later batch is answered by {@code later}.
+     */
+    private CountDownLatch holdFirstBatch(Answer<List<OrderPlacement>> later) throws InterruptedException {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.placeOrders(anyList())).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return placed(invocation.getArgument(0));
+        }).thenAnswer(later);
+        pipeline.start();
+        pipeline.submit(5L);
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static List<OrderPlacement> placed(List<Long> userIds) {
+        List<OrderPlacement> placements = new ArrayList<>();
+        for (Long userId : userIds) {
+            placements.add(OrderPlacement.placed(order(userId * 100)));
+        }
+        return placements;
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setOrderId(id);
+        return order;
+    }
+
+    private static Cart cartWithOneItem() {
+        Cart cart = new Cart();
+        CartItem item = new CartItem();
+        item.setQuantity(1);
+        cart.getItems().add(item);
+        return cart;
+    }
+}
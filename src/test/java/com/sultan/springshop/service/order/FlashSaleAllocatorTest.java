@@ -0,0 +1,96 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FlashSaleAllocatorTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private FlashSaleAllocator allocator;
+
+    @Test
+    void flush_shouldTakeAWholeBatchWithOneUpdateWhenStockSuffices() {
+        when(productRepository.decrementInventory(Map.of(1L, 6))).thenReturn(Set.of());
+        CompletableFuture<Boolean> first = allocator.reserve(1L, 2);
+        CompletableFuture<Boolean> second = allocator.reserve(1L, 4);
+
+        allocator.flush();
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        verify(productRepository, times(1)).decrementInventory(any());
+        verify(productRepository, never()).findInventoryForUpdate(any());
+    }
+
+    @Test
+    void flush_shouldGrantInArrivalOrderWhileStockLasts() {
+        when(productRepository.decrementInventory(Map.of(1L, 8))).thenReturn(Set.of(1L));
+        when(productRepository.findInventoryForUpdate(1L)).thenReturn(4);
+        CompletableFuture<Boolean> two = allocator.reserve(1L, 2);
+        CompletableFuture<Boolean> five = allocator.reserve(1L, 5);
+        CompletableFuture<Boolean> one = allocator.reserve(1L, 1);
+
+        allocator.flush();
+
+        assertTrue(two.join());
+        assertFalse(five.join());
+        assertTrue(one.join());
+        verify(productRepository).decrementInventory(Map.of(1L, 3));
+    }
+
+    @Test
+    void flush_shouldNetReleasedStockIntoTheNextBatch() {
+        when(productRepository.decrementInventory(Map.of(1L, 1))).thenReturn(Set.of());
+        allocator.release(1L, 2);
+        CompletableFuture<Boolean> reservation = allocator.reserve(1L, 3);
+
+        allocator.flush();
+
+        assertTrue(reservation.join());
+        allocator.flush();
+        verify(productRepository, times(1)).decrementInventory(any());
+    }
+
+    @Test
+    void flush_shouldHandBackStockGrantedToARequesterThatGaveUp() {
+        when(productRepository.decrementInventory(any())).thenReturn(Set.of());
+        CompletableFuture<Boolean> reservation = allocator.reserve(1L, 3);
+        reservation.cancel(false);
+
+        allocator.flush();
+        allocator.flush();
+
+        verify(productRepository).decrementInventory(Map.of(1L, 3));
+        verify(productRepository).decrementInventory(Map.of(1L, -3));
+    }
+
+    @Test
+    void shutdown_shouldHandBackStockStillPending() throws InterruptedException {
+        when(productRepository.decrementInventory(Map.of(1L, -2))).thenReturn(Set.of());
+        allocator.release(1L, 2);
+
+        allocator.shutdown();
+
+        verify(productRepository).decrementInventory(Map.of(1L, -2));
+    }
+}
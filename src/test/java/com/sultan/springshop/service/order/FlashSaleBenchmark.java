@@ -0,0 +1,142 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders per second against one hot product on a real Postgres, each order
+ * taking the row lock in its own transaction versus going through the
+ * flash-sale allocator. Every iteration checks that exactly the orders placed
+ * were taken off the stock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class FlashSaleBenchmark {
+
+    // more than either variant can sell in an iteration
+    private static final int STOCK = 10_000_000;
+
+    @Param({ "rowLock", "allocator" })
+    private String reservation;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private FlashSaleAllocator flashSaleAllocator;
+    private TransactionTemplate transaction;
+
+    private Long productId;
+    private final AtomicLong placed = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startDatabase() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(Config.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--spring.jpa.show-sql=false");
+        productRepository = context.getBean(ProductRepository.class);
+        flashSaleAllocator = context.getBean(FlashSaleAllocator.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void stockProduct() {
+        productId = productRepository.save(new Product(reservation, "Acme", Money.of("9.99"), STOCK, "", null))
+                .getId();
+        placed.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkStock() throws InterruptedException {
+        // stock granted to orders that timed out is handed back by a later allocator batch
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        int left = productRepository.findInventoryByIds(List.of(productId)).get(productId);
+        while (left != STOCK - placed.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            left = productRepository.findInventoryByIds(List.of(productId)).get(productId);
+        }
+        if (left != STOCK - placed.get()) {
+            throw new IllegalStateException(placed.get() + " orders placed but " + (STOCK - left) + " sold");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Boolean placeOrder() {
+        return transaction.execute(status -> {
+            boolean reserved = reserve();
+            // stands in for the order insert, done while a row lock would still be held
+            productRepository.findInventoryByIds(List.of(productId));
+            if (reserved) {
+                placed.incrementAndGet();
+            } else {
+                status.setRollbackOnly();
+            }
+            return reserved;
+        });
+    }
+
+    private boolean reserve() {
+        if (reservation.equals("rowLock")) {
+            return productRepository.decrementInventory(Map.of(productId, 1)).isEmpty();
+        }
+        boolean reserved = flashSaleAllocator.await(flashSaleAllocator.reserve(productId, 1));
+        if (reserved) {
+            flashSaleAllocator.releaseUnlessCommitted(Map.of(productId, 1));
+        }
+        return reserved;
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import(FlashSaleAllocator.class)
+    static class Config {
+    }
+}
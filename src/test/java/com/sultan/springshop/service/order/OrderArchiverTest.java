@@ -0,0 +1,93 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.ArchivedOrderWriteRepository.MovedRows;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderArchiverTest {
+
+    private static final Set<OrderStatus> STATUSES = Set.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        archiver = new OrderArchiver(archivedOrderRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(archiver, "archiveAfter", Duration.ofDays(365));
+        ReflectionTestUtils.setField(archiver, "statuses", STATUSES);
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        ReflectionTestUtils.setField(archiver, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(archiver, "intervalMinutes", 60L);
+        archiver.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiver.shutdown();
+    }
+
+    @Test
+    void archive_shouldMoveBatchesUntilOneComesBackShort() {
+        when(archivedOrderRepository.moveOrdersBefore(any(LocalDateTime.class), eq(STATUSES), eq(2)))
+                .thenReturn(new MovedRows(2, 5), new MovedRows(2, 3), new MovedRows(1, 1));
+
+        assertEquals(5, archiver.archive());
+
+        verify(archivedOrderRepository, times(3)).moveOrdersBefore(any(LocalDateTime.class), eq(STATUSES), eq(2));
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(5, meterRegistry.get("orders.archive.rows").tag("table", "orders").counter().count());
+        assertEquals(9, meterRegistry.get("orders.archive.rows").tag("table", "order_item").counter().count());
+        assertEquals(3, meterRegistry.get("orders.archive.batch.duration").timer().count());
+    }
+
+    @Test
+    void archive_shouldOnlyTakeOrdersOlderThanTheCutoff() {
+        when(archivedOrderRepository.moveOrdersBefore(any(LocalDateTime.class), eq(STATUSES), eq(2)))
+                .thenReturn(new MovedRows(0, 0));
+        LocalDateTime before = LocalDateTime.now().minusDays(365);
+
+        assertEquals(0, archiver.archive());
+
+        verify(archivedOrderRepository).moveOrdersBefore(
+                argThat(cutoff -> !cutoff.isBefore(before) && cutoff.isBefore(LocalDateTime.now().minusDays(364))),
+                eq(STATUSES), eq(2));
+    }
+
+    @Test
+    void archive_shouldStopAtAFailedBatchAndKeepWhatWasMoved() {
+        when(archivedOrderRepository.moveOrdersBefore(any(LocalDateTime.class), eq(STATUSES), eq(2)))
+                .thenReturn(new MovedRows(2, 2)).thenThrow(new IllegalStateException("deadlock"));
+
+        assertEquals(2, archiver.archive());
+
+        verify(transactionManager).rollback(any());
+        assertEquals(2, meterRegistry.get("orders.archive.rows").tag("table", "orders").counter().count());
+    }
+}
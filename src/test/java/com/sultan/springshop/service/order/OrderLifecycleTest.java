@@ -0,0 +1,161 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.exceptions.InvalidOrderTransitionException;
+import com.sultan.springshop.model.ArchivedOrder;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderEvent;
+import com.sultan.springshop.model.OrderSnapshot;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.OrderEventRepository;
+import com.sultan.springshop.repository.OrderRepository;
+import com.sultan.springshop.repository.OrderSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderLifecycleTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Mock
+    private OrderEventRepository orderEventRepository;
+
+    @Mock
+    private OrderSnapshotRepository orderSnapshotRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OrderLifecycle lifecycle;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lifecycle, "snapshotEvery", 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void placed_shouldStartTheLogWithPlacedAndReserved() {
+        Order order = order(OrderStatus.RESERVED, "PENDING");
+
+        OrderState state = lifecycle.placed(order);
+
+        ArgumentCaptor<List<OrderEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(orderEventRepository).saveAll(events.capture());
+        assertEquals(List.of(OrderEventType.PLACED, OrderEventType.RESERVED),
+                events.getValue().stream().map(OrderEvent::getType).toList());
+        assertEquals(List.of(1, 2), events.getValue().stream().map(OrderEvent::getSequence).toList());
+        assertEquals(new OrderState(7L, OrderStatus.RESERVED, 2, state.updatedAt()), state);
+        verify(eventPublisher).publishEvent(state);
+    }
+
+    @Test
+    void catchUp_shouldApplyTheEventsAppendedSinceTheState() {
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        when(orderEventRepository.findByOrderIdAndSequenceGreaterThanOrderBySequence(7L, 2)).thenReturn(List.of(
+                new OrderEvent(7L, 3, OrderEventType.PAID, OrderStatus.PAID, null, MONDAY.plusMinutes(5))));
+
+        assertEquals(new OrderState(7L, OrderStatus.PAID, 3, MONDAY.plusMinutes(5)), lifecycle.catchUp(reserved));
+    }
+
+    @Test
+    void current_shouldReplayOnlyTheEventsAfterTheSnapshot() {
+        Order order = order(OrderStatus.SHIPPED, "PAID");
+        when(orderSnapshotRepository.findById(7L))
+                .thenReturn(Optional.of(new OrderSnapshot(7L, 3, OrderStatus.PAID, MONDAY)));
+        when(orderEventRepository.findByOrderIdAndSequenceGreaterThanOrderBySequence(7L, 3)).thenReturn(
+                List.of(new OrderEvent(7L, 4, OrderEventType.SHIPPED, OrderStatus.SHIPPED, null, MONDAY)));
+
+        OrderState state = lifecycle.current(order);
+
+        assertEquals(OrderStatus.SHIPPED, state.status());
+        assertEquals(4, state.sequence());
+    }
+
+    @Test
+    void current_shouldStartAnOrderPlacedBeforeTheLogFromItsRow() {
+        Order order = order(OrderStatus.PENDING, "PAID");
+        when(orderSnapshotRepository.findById(7L)).thenReturn(Optional.empty());
+        when(orderEventRepository.findByOrderIdAndSequenceGreaterThanOrderBySequence(7L, 0)).thenReturn(List.of());
+
+        OrderState state = lifecycle.current(order);
+
+        assertEquals(new OrderState(7L, OrderStatus.PAID, 0, MONDAY), state);
+    }
+
+    @Test
+    void load_shouldRebuildAnArchivedOrderFromItsLog() {
+        ArchivedOrder archived = mock(ArchivedOrder.class);
+        when(archived.toOrder()).thenReturn(order(OrderStatus.DELIVERED, "PAID"));
+        when(orderRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.findById(7L)).thenReturn(Optional.of(archived));
+        when(orderSnapshotRepository.findById(7L))
+                .thenReturn(Optional.of(new OrderSnapshot(7L, 5, OrderStatus.DELIVERED, MONDAY)));
+        when(orderEventRepository.findByOrderIdAndSequenceGreaterThanOrderBySequence(7L, 5)).thenReturn(List.of());
+
+        OrderState state = lifecycle.load(7L);
+
+        assertEquals(new OrderState(7L, OrderStatus.DELIVERED, 5, MONDAY), state);
+    }
+
+    @Test
+    void append_shouldSnapshotEveryFewEventsAndKeepTheRowInStep() {
+        Order order = order(OrderStatus.RESERVED, "PENDING");
+
+        OrderState paid = lifecycle.append(order, new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY),
+                OrderEventType.PAID, "cs_test_123");
+
+        assertEquals(3, paid.sequence());
+        assertEquals(OrderStatus.PAID, order.getOrderStatus());
+        assertEquals("PAID", order.getPaymentStatus());
+        verify(orderEventRepository).save(argThat(event -> event.getSequence() == 3
+                && event.getType() == OrderEventType.PAID && "cs_test_123".equals(event.getDetail())));
+        verify(orderSnapshotRepository).save(argThat(snapshot -> snapshot.getSequence() == 3
+                && snapshot.getStatus() == OrderStatus.PAID));
+    }
+
+    @Test
+    void append_shouldRejectATransitionTheStatusMachineDoesNotAllow() {
+        Order order = order(OrderStatus.CANCELLED, "CANCELLED");
+
+        assertThrows(InvalidOrderTransitionException.class, () -> lifecycle.append(order,
+                new OrderState(7L, OrderStatus.CANCELLED, 3, MONDAY), OrderEventType.SHIPPED, null));
+
+        verify(orderEventRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+        assertEquals(OrderStatus.CANCELLED, order.getOrderStatus());
+    }
+
+    private static Order order(OrderStatus status, String paymentStatus) {
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setOrderDate(MONDAY);
+        order.setOrderStatus(status);
+        order.setPaymentStatus(paymentStatus);
+        return order;
+    }
+}
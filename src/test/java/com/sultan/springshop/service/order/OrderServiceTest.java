@@ -0,0 +1,363 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.dto.OrderDto;
+import com.sultan.springshop.dto.OrderPageDto;
+import com.sultan.springshop.dto.OrderStateDto;
+import com.sultan.springshop.dto.OrderSummaryDto;
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.enums.OrderStatus;
+import com.sultan.springshop.exceptions.InsufficientStockException;
+import com.sultan.springshop.exceptions.InsufficientStockException.StockShortage;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.OrderMapper;
+import com.sultan.springshop.model.ArchivedOrder;
+import com.sultan.springshop.model.Cart;
+import com.sultan.springshop.model.CartItem;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Order;
+import com.sultan.springshop.model.OrderItem;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.model.User;
+import com.sultan.springshop.repository.ArchivedOrderRepository;
+import com.sultan.springshop.repository.OrderRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.service.analytics.SalesEvent;
+import com.sultan.springshop.service.cart.ICartService;
+import com.sultan.springshop.service.outbox.OutboxWriter;
+import com.sultan.springshop.service.product.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderServiceTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ICartService cartService;
+
+    @Mock
+    private FlashSaleAllocator flashSaleAllocator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private OrderLifecycle orderLifecycle;
+
+    @Mock
+    private OrderStateProjection orderStateProjection;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private OrderMapper orderMapper = new OrderMapper();
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @Test
+    void placeOrder_shouldReserveAllLinesInOneBatchAndLeaveEntitiesUntouched() {
+        Product phone = product(1L, "Phone", 10);
+        Product charger = product(2L, "Charger", 10);
+        Cart cart = cart(item(phone, 2), item(charger, 3));
+        when(cartService.getCartByUserId(5L)).thenReturn(cart);
+        when(productRepository.decrementInventory(Map.of(1L, 2, 2L, 3))).thenReturn(Set.of());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.placeOrder(5L);
+
+        assertEquals(2, order.getOrderItems().size());
+        assertEquals(Money.of("50"), order.getTotalAmount());
+        verify(productRepository, times(1)).decrementInventory(any());
+        verify(productRepository, never()).save(any());
+        // stock is only changed in SQL; a dirty entity would write a stale count back
+        assertEquals(10, phone.getInventory());
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+        verify(orderLifecycle).placed(order);
+        verify(outboxWriter).record(eq("Order"), any(), eq("OrderPlaced"), any(OrderDto.class));
+        verify(cartService).clearCart(cart.getId());
+    }
+
+    @Test
+    void placeOrders_shouldWritePendingCartEditsBeforeEachOrderTransactionOpens() {
+        when(cartService.getCartByUserId(any())).thenReturn(null);
+
+        orderService.placeOrders(List.of(5L, 6L));
+
+        InOrder inOrder = inOrder(cartService, transactionManager);
+        inOrder.verify(cartService).flushPendingChanges(5L);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(cartService).getCartByUserId(5L);
+        inOrder.verify(cartService).flushPendingChanges(6L);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(cartService).getCartByUserId(6L);
+    }
+
+    @Test
+    void placeOrder_shouldFailWithEveryShortLineAndPlaceNothing() {
+        Product phone = product(1L, "Phone", 10);
+        Product charger = product(2L, "Charger", 10);
+        when(cartService.getCartByUserId(5L)).thenReturn(cart(item(phone, 2), item(charger, 3)));
+        when(productRepository.decrementInventory(any())).thenReturn(Set.of(2L));
+        when(productRepository.findInventoryByIds(Set.of(2L))).thenReturn(Map.of(2L, 1));
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> orderService.placeOrder(5L));
+
+        assertEquals(List.of(new StockShortage(2L, "Charger", 3, 1)), e.getShortages());
+        assertEquals("Insufficient stock for Charger (requested 3, available 1)", e.getMessage());
+        // the phone was taken; the rollback, not a second update, puts it back
+        verify(productRepository, times(1)).decrementInventory(any());
+        verify(transactionManager).rollback(any());
+        verify(orderRepository, never()).save(any());
+        verify(cartService, never()).clearCart(any());
+        verify(eventPublisher, never()).publishEvent(any());
+        verifyNoInteractions(outboxWriter);
+    }
+
+    @Test
+    void placeOrder_shouldReserveFlashSaleLinesThroughTheAllocator() {
+        Product phone = product(1L, "Phone", 10);
+        phone.setFlashSale(true);
+        Product charger = product(2L, "Charger", 10);
+        CompletableFuture<Boolean> reservation = CompletableFuture.completedFuture(false);
+        when(cartService.getCartByUserId(5L)).thenReturn(cart(item(phone, 2), item(charger, 3)));
+        when(flashSaleAllocator.reserve(1L, 2)).thenReturn(reservation);
+        when(flashSaleAllocator.await(reservation)).thenReturn(false);
+        when(productRepository.decrementInventory(Map.of(2L, 3))).thenReturn(Set.of());
+        when(productRepository.findInventoryByIds(Set.of(1L))).thenReturn(Map.of(1L, 0));
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> orderService.placeOrder(5L));
+
+        assertEquals(List.of(new StockShortage(1L, "Phone", 2, 0)), e.getShortages());
+        // the charger was taken before the phone came up short; the rollback puts it back
+        verify(productRepository, times(1)).decrementInventory(any());
+        verify(transactionManager).rollback(any());
+        verify(flashSaleAllocator, never()).releaseUnlessCommitted(any());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void placeOrders_shouldReportFailedOrdersInTheirSlotAndPlaceTheRest() {
+        Product phone = product(1L, "Phone", 10);
+        Product charger = product(2L, "Charger", 10);
+        when(cartService.getCartByUserId(5L)).thenReturn(cart(item(phone, 2)));
+        when(cartService.getCartByUserId(6L)).thenReturn(cart(item(charger, 3)));
+        when(cartService.getCartByUserId(7L)).thenReturn(null);
+        when(productRepository.decrementInventory(Map.of(1L, 2))).thenReturn(Set.of());
+        when(productRepository.decrementInventory(Map.of(2L, 3))).thenReturn(Set.of(2L));
+        when(productRepository.findInventoryByIds(Set.of(2L))).thenReturn(Map.of(2L, 1));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<OrderPlacement> placements = orderService.placeOrders(List.of(5L, 6L, 7L));
+
+        assertTrue(placements.get(0).isPlaced());
+        assertInstanceOf(InsufficientStockException.class, placements.get(1).failure());
+        assertInstanceOf(ResourceNotFoundException.class, placements.get(2).failure());
+        verify(orderRepository, times(1)).save(any());
+        // each order commits or rolls back on its own
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void getUserOrderHistory_shouldReturnAPageAndACursorToTheNext() {
+        OrderSummaryDto newest = summary(9L, MONDAY.plusDays(2));
+        OrderSummaryDto older = summary(7L, MONDAY.plusDays(1));
+        when(orderRepository.findSummariesByUserId(5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(newest, older, summary(4L, MONDAY)));
+        when(orderRepository.findSummariesByUserIdBefore(5L, older.orderDate(), 7L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(summary(4L, MONDAY)));
+
+        OrderPageDto first = orderService.getUserOrderHistory(5L, null, 2);
+        OrderPageDto second = orderService.getUserOrderHistory(5L, first.getNextCursor(), 1);
+
+        assertEquals(List.of(newest, older), first.getOrders());
+        assertTrue(first.isHasNext());
+        assertEquals(1, second.getOrders().size());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getUserOrderHistory_shouldMergeArchivedOrdersIntoThePage() {
+        when(orderRepository.findSummariesByUserId(5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(summary(9L, MONDAY.plusDays(2)), summary(4L, MONDAY)));
+        when(archivedOrderRepository.findSummariesByUserId(5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(summary(7L, MONDAY.plusDays(1)), summary(2L, MONDAY.minusDays(1))));
+
+        OrderPageDto page = orderService.getUserOrderHistory(5L, null, 2);
+
+        assertEquals(List.of(9L, 7L), page.getOrders().stream().map(OrderSummaryDto::orderId).toList());
+        assertTrue(page.isHasNext());
+    }
+
+    @Test
+    void getOrder_shouldFallBackToTheArchive() {
+        ArchivedOrder archived = mock(ArchivedOrder.class);
+        when(archived.toOrder()).thenReturn(order(7L, OrderStatus.DELIVERED, product(1L, "Phone", 10), 2));
+        when(orderRepository.findDetailById(7L)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.findDetailById(7L)).thenReturn(Optional.of(archived));
+
+        OrderDto order = orderService.getOrder(7L);
+
+        assertEquals(7L, order.getOrderId());
+        assertEquals("DELIVERED", order.getStatus());
+        assertEquals(1, order.getItems().size());
+    }
+
+    @Test
+    void getUserOrderHistory_shouldRejectABadCursorOrSize() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getUserOrderHistory(5L, "not-a-cursor", 20));
+        assertThrows(IllegalArgumentException.class, () -> orderService.getUserOrderHistory(5L, null, 0));
+    }
+
+    @Test
+    void updateOrderStatus_shouldAppendTheEventAndPutCancelledStockBack() {
+        Order order = order(7L, OrderStatus.RESERVED, product(1L, "Phone", 10), 2);
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        OrderState cancelled = new OrderState(7L, OrderStatus.CANCELLED, 3, MONDAY);
+        when(orderRepository.lockById(7L)).thenReturn(Optional.of(order));
+        when(orderRepository.findDetailById(7L)).thenReturn(Optional.of(order));
+        when(orderLifecycle.current(order)).thenReturn(reserved);
+        when(orderLifecycle.append(order, reserved, OrderEventType.CANCELLED, "customer request")).thenReturn(cancelled);
+
+        OrderStateDto state = orderService.updateOrderStatus(7L, OrderEventType.CANCELLED, "customer request");
+
+        assertEquals(OrderStatus.CANCELLED, state.status());
+        assertEquals(3, state.version());
+        verify(productRepository).decrementInventory(Map.of(1L, -2));
+        verify(outboxWriter).record(eq("Order"), eq(7L), eq("OrderStatusChanged"), any(OrderDto.class));
+        verify(eventPublisher, never()).publishEvent(any(SalesEvent.class));
+    }
+
+    @Test
+    void updateOrderStatus_shouldIgnoreARepeatedEvent() {
+        Order order = order(7L, OrderStatus.PAID, product(1L, "Phone", 10), 2);
+        when(orderRepository.lockById(7L)).thenReturn(Optional.of(order));
+        when(orderRepository.findDetailById(7L)).thenReturn(Optional.of(order));
+        when(orderLifecycle.current(order)).thenReturn(new OrderState(7L, OrderStatus.PAID, 3, MONDAY));
+
+        OrderStateDto state = orderService.updateOrderStatus(7L, OrderEventType.PAID, "cs_test_123");
+
+        assertEquals(OrderStatus.PAID, state.status());
+        verify(orderLifecycle, never()).append(any(), any(), any(), any());
+        verifyNoInteractions(outboxWriter, eventPublisher);
+    }
+
+    @Test
+    void updateOrderStatus_shouldCountTheSaleAsPaid() {
+        Order order = order(7L, OrderStatus.RESERVED, product(1L, "Phone", 10), 2);
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        when(orderRepository.lockById(7L)).thenReturn(Optional.of(order));
+        when(orderRepository.findDetailById(7L)).thenReturn(Optional.of(order));
+        when(orderLifecycle.current(order)).thenReturn(reserved);
+        when(orderLifecycle.append(order, reserved, OrderEventType.PAID, "cs_test_123"))
+                .thenReturn(new OrderState(7L, OrderStatus.PAID, 3, MONDAY));
+
+        orderService.updateOrderStatus(7L, OrderEventType.PAID, "cs_test_123");
+
+        verify(eventPublisher).publishEvent(any(SalesEvent.class));
+        verify(productRepository, never()).decrementInventory(any());
+    }
+
+    @Test
+    void updateOrderStatus_shouldBringAnArchivedOrderBackBeforeRefundingIt() {
+        Order order = order(7L, OrderStatus.DELIVERED, product(1L, "Phone", 10), 2);
+        OrderState delivered = new OrderState(7L, OrderStatus.DELIVERED, 5, MONDAY);
+        when(orderRepository.lockById(7L)).thenReturn(Optional.empty(), Optional.of(order));
+        when(orderRepository.findDetailById(7L)).thenReturn(Optional.of(order));
+        when(orderLifecycle.current(order)).thenReturn(delivered);
+        when(orderLifecycle.append(order, delivered, OrderEventType.REFUNDED, "damaged"))
+                .thenReturn(new OrderState(7L, OrderStatus.REFUNDED, 6, MONDAY));
+
+        OrderStateDto state = orderService.updateOrderStatus(7L, OrderEventType.REFUNDED, "damaged");
+
+        assertEquals(OrderStatus.REFUNDED, state.status());
+        verify(archivedOrderRepository).restoreOrder(7L);
+    }
+
+    @Test
+    void updateOrderStatus_shouldReportAnOrderInNeitherPlaceAsNotFound() {
+        when(orderRepository.lockById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> orderService.updateOrderStatus(7L, OrderEventType.REFUNDED, "damaged"));
+        verify(orderLifecycle, never()).append(any(), any(), any(), any());
+    }
+
+    private static OrderSummaryDto summary(Long orderId, LocalDateTime orderDate) {
+        return new OrderSummaryDto(orderId, orderDate, new BigDecimal("10"), OrderStatus.PENDING, "PENDING", 1L);
+    }
+
+    private static Order order(Long orderId, OrderStatus status, Product product, int quantity) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setOrderDate(MONDAY);
+        order.setOrderStatus(status);
+        order.setPaymentStatus(status.paymentStatus());
+        order.getOrderItems().add(new OrderItem(order, product, quantity, product.getPrice()));
+        return order;
+    }
+
+    private static Product product(Long id, String name, int inventory) {
+        Product product = new Product(name, "Acme", Money.of("10"), inventory, "", null);
+        product.setId(id);
+        return product;
+    }
+
+    private static CartItem item(Product product, int quantity) {
+        CartItem item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getPrice());
+        return item;
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setId(9L);
+        User user = new User();
+        user.setId(5L);
+        cart.setUser(user);
+        for (CartItem item : items) {
+            cart.addItem(item);
+        }
+        return cart;
+    }
+}
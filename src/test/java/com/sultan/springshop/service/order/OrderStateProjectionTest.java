@@ -0,0 +1,66 @@
+package com.sultan.springshop.service.order;
+
+import com.sultan.springshop.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderStateProjectionTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Mock
+    private OrderLifecycle orderLifecycle;
+
+    private OrderStateProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        projection = new OrderStateProjection(orderLifecycle, 2);
+    }
+
+    @Test
+    void get_shouldRebuildAnOrderNotHeldYetOnlyOnce() {
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        when(orderLifecycle.load(7L)).thenReturn(reserved);
+        when(orderLifecycle.catchUp(reserved)).thenReturn(reserved);
+
+        assertEquals(reserved, projection.get(7L));
+        assertEquals(reserved, projection.get(7L));
+
+        verify(orderLifecycle, times(1)).load(7L);
+    }
+
+    @Test
+    void get_shouldPickUpAChangeCommittedOnAnotherNode() {
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        OrderState paid = new OrderState(7L, OrderStatus.PAID, 3, MONDAY.plusMinutes(5));
+        projection.onOrderStateChanged(reserved);
+        when(orderLifecycle.catchUp(reserved)).thenReturn(paid);
+        when(orderLifecycle.catchUp(paid)).thenReturn(paid);
+
+        assertEquals(paid, projection.get(7L));
+        assertEquals(paid, projection.get(7L));
+
+        verify(orderLifecycle, never()).load(7L);
+    }
+
+    @Test
+    void onOrderStateChanged_shouldNeverReplaceANewerStateWithAnOlderOne() {
+        OrderState reserved = new OrderState(7L, OrderStatus.RESERVED, 2, MONDAY);
+        OrderState paid = new OrderState(7L, OrderStatus.PAID, 3, MONDAY.plusMinutes(5));
+        projection.onOrderStateChanged(paid);
+        projection.onOrderStateChanged(reserved);
+        when(orderLifecycle.catchUp(paid)).thenReturn(paid);
+
+        assertEquals(paid, projection.get(7L));
+    }
+}
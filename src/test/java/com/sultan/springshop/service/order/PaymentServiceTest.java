@@ -3,6 +3,9 @@ package com.sultan.springshop.service.order;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.sultan.springshop.enums.OrderEventType;
+import com.sultan.springshop.exceptions.InvalidOrderTransitionException;
+import com.sultan.springshop.model.Money;
 import com.sultan.springshop.model.Order;
 import com.sultan.springshop.service.order.OrderService;
 import com.sultan.springshop.service.PaymentService;
@@ -15,7 +18,6 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,7 +42,7 @@ public class PaymentServiceTest {
         Long orderId = 1L;
         Order order = new Order();
         order.setOrderId(orderId);
-        order.setTotalAmount(new BigDecimal("10.00"));
+        order.setTotalAmount(Money.of("10.00"));
 
         when(orderService.getOrderById(orderId)).thenReturn(order);
 
@@ -72,7 +74,23 @@ public class PaymentServiceTest {
 
             paymentService.handleSuccessfulPayment(sessionId);
 
-            verify(orderService, times(1)).updateOrderStatus(Long.valueOf(orderId), "PAID");
+            verify(orderService, times(1)).updateOrderStatus(Long.valueOf(orderId), OrderEventType.PAID, sessionId);
+        }
+    }
+
+    @Test
+    void handleSuccessfulPayment_shouldIgnoreAPaymentForAnOrderThatMovedOn() throws StripeException {
+        String sessionId = "cs_test_123";
+
+        Session mockStripeSession = mock(Session.class);
+        when(mockStripeSession.getMetadata()).thenReturn(java.util.Collections.singletonMap("orderId", "1"));
+        doThrow(new InvalidOrderTransitionException("Order 1 cannot go from CANCELLED to PAID"))
+                .when(orderService).updateOrderStatus(1L, OrderEventType.PAID, sessionId);
+
+        try (MockedStatic<Session> mockedSession = mockStatic(Session.class)) {
+            mockedSession.when(() -> Session.retrieve(sessionId)).thenReturn(mockStripeSession);
+
+            assertDoesNotThrow(() -> paymentService.handleSuccessfulPayment(sessionId));
         }
     }
 
@@ -84,7 +102,7 @@ public class PaymentServiceTest {
             mockedSession.when(() -> Session.retrieve(sessionId)).thenThrow(StripeException.class);
 
             assertDoesNotThrow(() -> paymentService.handleSuccessfulPayment(sessionId));
-            verify(orderService, never()).updateOrderStatus(any(), any());
+            verify(orderService, never()).updateOrderStatus(any(), any(), any());
         }
     }
 }
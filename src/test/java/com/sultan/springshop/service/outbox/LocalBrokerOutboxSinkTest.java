@@ -0,0 +1,30 @@
+package com.sultan.springshop.service.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalBrokerOutboxSinkTest {
+
+    @Test
+    void publish_shouldDropARedeliveredEvent() throws InterruptedException {
+        LocalBrokerOutboxSink sink = new LocalBrokerOutboxSink(100);
+        OutboxMessage placed = message("event-1", "OrderPlaced");
+        OutboxMessage paid = message("event-2", "OrderStatusChanged");
+
+        sink.publish(List.of(placed, paid));
+        sink.publish(List.of(placed));
+
+        assertEquals(placed, sink.poll("OrderPlaced", 0, TimeUnit.MILLISECONDS));
+        assertNull(sink.poll("OrderPlaced", 0, TimeUnit.MILLISECONDS));
+        assertEquals(paid, sink.poll("OrderStatusChanged", 0, TimeUnit.MILLISECONDS));
+    }
+
+    private static OutboxMessage message(String eventId, String eventType) {
+        return new OutboxMessage(eventId, "Order", "1", eventType, "{}", LocalDateTime.now());
+    }
+}
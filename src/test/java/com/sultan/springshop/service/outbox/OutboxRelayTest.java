@@ -0,0 +1,106 @@
+package com.sultan.springshop.service.outbox;
+
+import com.sultan.springshop.model.OutboxEvent;
+import com.sultan.springshop.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxSink outboxSink;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "pauseMillis", 1L);
+    }
+
+    @Test
+    void relayBatch_shouldPublishTheClaimedEventsAndMarkThemPublished() {
+        when(outboxEventRepository.claimBatch(2)).thenReturn(events(1, 2));
+
+        assertEquals(2, relay.relayBatch());
+
+        verify(outboxSink).publish(argThat(messages -> messages.size() == 2
+                && messages.get(0).eventId().equals("event-1") && messages.get(1).eventId().equals("event-2")));
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void relayBatch_shouldLeaveTheBatchUnpublishedWhenTheSinkFails() {
+        when(outboxEventRepository.claimBatch(2)).thenReturn(events(1, 2));
+        doThrow(new IllegalStateException("sink down")).when(outboxSink).publish(any());
+
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+
+        verify(outboxEventRepository, never()).markPublished(any(), any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void drain_shouldKeepClaimingWhileBatchesComeBackFull() {
+        when(outboxEventRepository.claimBatch(2)).thenReturn(events(1, 2), events(3, 4), events(5, 5));
+
+        assertEquals(5, relay.drain());
+
+        verify(outboxEventRepository, times(3)).claimBatch(2);
+        verify(outboxSink, times(3)).publish(any());
+    }
+
+    @Test
+    void drain_shouldStopAtAFailedBatchAndLeaveItForTheNextPoll() {
+        when(outboxEventRepository.claimBatch(2)).thenReturn(events(1, 2), events(3, 4));
+        doNothing().doThrow(new IllegalStateException("sink down")).when(outboxSink).publish(any());
+
+        assertEquals(2, relay.drain());
+
+        verify(outboxEventRepository, times(2)).claimBatch(2);
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void drain_shouldDoNothingWhenTheOutboxIsEmpty() {
+        when(outboxEventRepository.claimBatch(2)).thenReturn(List.of());
+
+        assertEquals(0, relay.drain());
+
+        verifyNoInteractions(outboxSink);
+        verify(outboxEventRepository, never()).markPublished(any(), any());
+    }
+
+    private static List<OutboxEvent> events(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(id -> {
+            OutboxEvent event = new OutboxEvent("event-" + id, "Order", String.valueOf(id), "OrderPlaced", "{}",
+                    LocalDateTime.now());
+            event.setId(id);
+            return event;
+        }).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.sultan.springshop.service.product;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sultan.springshop.dto.ImageDto;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.enums.ExportFormat;
+import com.sultan.springshop.model.Category;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogExporterTest {
+
+    private static final LocalDateTime UPDATED_SINCE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private IProductService productService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLineForNdjson() throws Exception {
+        streamProducts(product(1L, "Phone", "Acme"), product(2L, "Laptop", "Initech"));
+
+        String output = export(ExportFormat.NDJSON);
+
+        assertTrue(output.endsWith("}\n"));
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{"));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("Phone", first.get("name").asText());
+        assertEquals("Electronics", first.get("category").get("name").asText());
+        assertEquals("/api/v1/images/image/download/1", first.get("images").get(0).get("downloadUrl").asText());
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+        verify(productService).streamProducts(eq(UPDATED_SINCE), any());
+    }
+
+    @Test
+    void export_shouldQuoteCsvFieldsContainingSeparatorsAndQuotes() throws Exception {
+        ProductDto product = product(1L, "Phone, 128GB", "Acme \"Pro\"");
+        product.setDescription("two\nlines");
+        streamProducts(product);
+
+        String[] lines = export(ExportFormat.CSV).split("\n", 2);
+
+        assertEquals(CatalogExporter.CSV_HEADER, lines[0]);
+        assertEquals("1,\"Phone, 128GB\",\"Acme \"\"Pro\"\"\",499.00,5,\"two\nlines\",Electronics,"
+                + "2025-03-01T10:15,/api/v1/images/image/download/1\n", lines[1]);
+    }
+
+    private String export(ExportFormat format) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new CatalogExporter(productService, objectMapper).export(format, UPDATED_SINCE, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamProducts(ProductDto... products) {
+        doAnswer(invocation -> {
+            Consumer<ProductDto> consumer = invocation.getArgument(1);
+            for (ProductDto product : products) {
+                consumer.accept(product);
+            }
+            return null;
+        }).when(productService).streamProducts(any(), any(Consumer.class));
+    }
+
+    private static ProductDto product(Long id, String name, String brand) {
+        ImageDto image = new ImageDto();
+        image.setId(id);
+        image.setFileName("product.png");
+        image.setDownloadUrl("/api/v1/images/image/download/" + id);
+
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setPrice(new BigDecimal("499.00"));
+        product.setInventory(5);
+        product.setDescription("description");
+        product.setCategory(new Category("Electronics"));
+        product.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 15));
+        product.setImages(List.of(image));
+        return product;
+    }
+}
@@ -0,0 +1,151 @@
+package com.sultan.springshop.service.product;
+
+import com.sultan.springshop.dto.ImportRowError;
+import com.sultan.springshop.dto.ProductImportResultDto;
+import com.sultan.springshop.dto.ProductLabel;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.CategoryRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.request.AddProductRequest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductImportService productImportService;
+
+    @Test
+    void importProducts_shouldResolveCategoriesOnceAndCheckDuplicatesOncePerChunk() {
+        Category electronics = new Category("Electronics");
+        when(categoryRepository.findAll()).thenReturn(List.of(electronics));
+        List<AddProductRequest> products = IntStream.range(0, ProductImportService.CHUNK_SIZE * 2 + 500)
+                .mapToObj(i -> request("Phone " + i, "Acme", "Electronics"))
+                .toList();
+
+        ProductImportResultDto result = productImportService.importProducts(products);
+
+        assertEquals(2500, result.getImported());
+        assertTrue(result.getErrors().isEmpty());
+        verify(categoryRepository, times(1)).findAll();
+        verify(categoryRepository, never()).saveAll(anyIterable());
+        verify(productRepository, times(3)).findLabelsByNameIn(anyCollection());
+        verify(entityManager, times(2500)).persist(any(Product.class));
+        verify(entityManager, times(3)).clear();
+        verify(eventPublisher, times(2500)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void importProducts_shouldReportInvalidAndDuplicateRowsAndImportTheRest() {
+        when(categoryRepository.findAll()).thenReturn(new ArrayList<>());
+        when(categoryRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findLabelsByNameIn(anyCollection()))
+                .thenReturn(List.of(new ProductLabel(1L, "TV", "Acme")));
+        AddProductRequest negativePrice = request("Laptop", "Acme", "Computers");
+        negativePrice.setPrice(new BigDecimal("-1"));
+
+        ProductImportResultDto result = productImportService.importProducts(List.of(
+                request("Phone", "Acme", "Electronics"),
+                request("TV", "Acme", "Electronics"),
+                negativePrice,
+                request("Phone", "Acme", "Electronics"),
+                request("Tablet", "Acme", "Computers")));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(
+                new ImportRowError(2, "Acme TV already exists"),
+                new ImportRowError(3, "Price must not be negative"),
+                new ImportRowError(4, "Acme Phone already exists")), result.getErrors());
+        verify(categoryRepository).saveAll(anyIterable());
+    }
+
+    @Test
+    void importProductsCsv_shouldMapColumnsByHeaderAndReportUnparseableRows() throws Exception {
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category("Electronics")));
+        String csv = "id,name,brand,price,inventory,description,category,updatedAt,imageUrls\n"
+                + "7,\"Phone, 128GB\",Acme,499.00,5,\"Says \"\"hi\"\"\",Electronics,,\n"
+                + "8,Laptop,Acme,cheap,1,,Electronics,,\n";
+
+        ProductImportResultDto result = productImportService.importProductsCsv(new StringReader(csv));
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(new ImportRowError(2, "Invalid price: cheap")), result.getErrors());
+        ArgumentCaptor<Product> product = ArgumentCaptor.forClass(Product.class);
+        verify(entityManager).persist(product.capture());
+        assertEquals("Phone, 128GB", product.getValue().getName());
+        assertEquals("Says \"hi\"", product.getValue().getDescription());
+        assertEquals(Money.of("499.00"), product.getValue().getPrice());
+        assertEquals(5, product.getValue().getInventory());
+    }
+
+    @Test
+    void importProductsCsv_shouldImportEachChunkAsItIsReadAndKeepRowNumbers() throws Exception {
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category("Electronics")));
+        StringBuilder csv = new StringBuilder("name,price,category\n");
+        for (int row = 1; row <= ProductImportService.CHUNK_SIZE + 500; row++) {
+            csv.append("Phone ").append(row).append(',').append(row == 1200 ? "cheap" : "9.99").append(",Electronics\n");
+        }
+
+        ProductImportResultDto result = productImportService.importProductsCsv(new StringReader(csv.toString()));
+
+        assertEquals(1500, result.getReceived());
+        assertEquals(1499, result.getImported());
+        assertEquals(List.of(new ImportRowError(1200, "Invalid price: cheap")), result.getErrors());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void importProductsCsv_shouldRejectHeaderWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productImportService.importProductsCsv(new StringReader("name,brand\nPhone,Acme\n")));
+    }
+
+    private static AddProductRequest request(String name, String brand, String category) {
+        AddProductRequest request = new AddProductRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setPrice(new BigDecimal("99.00"));
+        request.setInventory(3);
+        request.setCategory(new Category(category));
+        return request;
+    }
+}
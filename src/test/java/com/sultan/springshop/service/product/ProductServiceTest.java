@@ -0,0 +1,181 @@
+package com.sultan.springshop.service.product;
+
+import com.sultan.springshop.config.CacheConfig;
+import com.sultan.springshop.dto.ImageSummary;
+import com.sultan.springshop.dto.ProductDto;
+import com.sultan.springshop.dto.ProductPageDto;
+import com.sultan.springshop.enums.ProductSort;
+import com.sultan.springshop.exceptions.ResourceNotFoundException;
+import com.sultan.springshop.mapper.ProductMapper;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.repository.CartItemRepository;
+import com.sultan.springshop.repository.CategoryRepository;
+import com.sultan.springshop.repository.ImageRepository;
+import com.sultan.springshop.repository.ProductRepository;
+import com.sultan.springshop.request.AddProductRequest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ProductMapper productMapper = new ProductMapper();
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCT_DTOS);
+
+    @InjectMocks
+    private ProductService productService;
+
+    @Test
+    void addProduct_shouldRejectAPriceFinerThanCentsBeforeSavingAnything() {
+        AddProductRequest request = new AddProductRequest();
+        request.setName("Phone");
+        request.setBrand("Acme");
+        request.setPrice(new BigDecimal("9.999"));
+        request.setCategory(new Category("Phones"));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.addProduct(request));
+        verifyNoInteractions(categoryRepository);
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void getConvertedProducts_shouldLoadImagesOfThousandProductsWithOneQuery() {
+        List<Product> products = products(1000);
+        when(imageRepository.findByProductIdIn(anyCollection())).thenReturn(
+                List.of(new ImageSummary(7L, "phone.png", "/api/v1/images/image/download/7", 42L)));
+
+        List<ProductDto> productDtos = productService.getConvertedProducts(products);
+
+        assertEquals(1000, productDtos.size());
+        assertEquals(1, productDtos.get(41).getImages().size());
+        assertEquals("phone.png", productDtos.get(41).getImages().get(0).getFileName());
+        assertTrue(productDtos.get(0).getImages().isEmpty());
+        verify(imageRepository, times(1)).findByProductIdIn(anyCollection());
+        verify(imageRepository, never()).findByProductId(anyLong());
+    }
+
+    @Test
+    void getConvertedProducts_shouldIssueOneImageQueryPerThousandProducts() {
+        when(imageRepository.findByProductIdIn(anyCollection())).thenReturn(List.of());
+
+        productService.getConvertedProducts(products(2500));
+
+        verify(imageRepository, times(3)).findByProductIdIn(anyCollection());
+    }
+
+    @Test
+    void getConvertedProducts_shouldNotQueryForEmptyList() {
+        assertTrue(productService.getConvertedProducts(List.of()).isEmpty());
+        verifyNoInteractions(imageRepository);
+    }
+
+    @Test
+    void getProductDtoById_shouldLoadOnceAndHandEveryCallerItsOwnCopy() {
+        Product phone = products(1).get(0);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(phone));
+
+        ProductDto first = productService.getProductDtoById(1L);
+        first.setName("Changed");
+        first.getCategory().setName("Changed");
+        ProductDto second = productService.getProductDtoById(1L);
+
+        assertEquals("Phone 1", second.getName());
+        assertEquals("Phones", second.getCategory().getName());
+        assertNotSame(phone.getCategory(), second.getCategory());
+        assertEquals("Phones", phone.getCategory().getName());
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getProductDtoById_shouldReportAMissingProductAsNotFound() {
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> productService.getProductDtoById(1L));
+    }
+
+    @Test
+    void getProductsPage_shouldPageOnPastProductsWithoutAPrice() {
+        Product priced = unnamedAndUnpriced(1L);
+        priced.setPrice(Money.of("5"));
+        List<Product> firstRows = List.of(priced, unnamedAndUnpriced(2L), unnamedAndUnpriced(3L));
+        when(productRepository.findAllByOrderByPriceAscIdAsc(any())).thenReturn(firstRows);
+        when(productRepository.findPageAfterNullPrice(eq(2L), any())).thenReturn(List.of(unnamedAndUnpriced(3L)));
+
+        ProductPageDto first = productService.getProductsPage(null, 2, ProductSort.PRICE);
+        ProductPageDto second = productService.getProductsPage(first.getNextCursor(), 2, ProductSort.PRICE);
+
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(3L), second.getProducts().stream().map(ProductDto::getId).toList());
+        assertFalse(second.isHasNext());
+        verify(productRepository, never()).findPageAfterPrice(any(), anyLong(), any());
+    }
+
+    @Test
+    void getProductsPage_shouldTellAMissingNameFromAnEmptyOne() {
+        Product empty = unnamedAndUnpriced(1L);
+        empty.setName("");
+        when(productRepository.findAllByOrderByNameAscIdAsc(any()))
+                .thenReturn(List.of(empty, unnamedAndUnpriced(2L)));
+        when(productRepository.findPageAfterName(eq(""), eq(1L), any())).thenReturn(List.of());
+
+        ProductPageDto first = productService.getProductsPage(null, 1, ProductSort.NAME);
+        productService.getProductsPage(first.getNextCursor(), 1, ProductSort.NAME);
+
+        verify(productRepository).findPageAfterName(eq(""), eq(1L), any());
+        verify(productRepository, never()).findPageAfterNullName(anyLong(), any());
+    }
+
+    private static Product unnamedAndUnpriced(Long id) {
+        Product product = new Product(null, "Brand", null, 5, "", null);
+        product.setId(id);
+        return product;
+    }
+
+    private List<Product> products(int count) {
+        Category category = new Category("Phones");
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            Product product = new Product("Phone " + id, "Brand", Money.of("9.99"), 5, "A phone", category);
+            product.setId(id);
+            return product;
+        }).toList();
+    }
+}
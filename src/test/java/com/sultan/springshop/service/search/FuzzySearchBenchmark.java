@@ -0,0 +1,85 @@
+package com.sultan.springshop.service.search;
+
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy search latency against catalog size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+    @Param({ "10000", "100000", "500000" })
+    private int catalogSize;
+
+    private ProductSearchIndex searchIndex;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = randomWords(random, 20_000);
+        String[] brands = randomWords(random, 500);
+        brands[0] = "samsung";
+        brands[1] = "lenovo";
+        brands[2] = "nintendo";
+        Category[] categories = { new Category("Phones"), new Category("Laptops"), new Category("Consoles") };
+        // misspelled brands and name words: transposed, dropped and doubled letters
+        queries = new String[] { "samsnug", "lenvoo " + transpose(words[7]), "nintedno", words[11].substring(1),
+                words[13] + "s " + transpose(words[17]) };
+
+        searchIndex = new ProductSearchIndex(null, null, null);
+        for (long id = 1; id <= catalogSize; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " "
+                    + (id % 1000);
+            Product product = new Product(name, brands[random.nextInt(brands.length)], Money.of("10"), 1,
+                    "", categories[(int) (id % categories.length)]);
+            product.setId(id);
+            searchIndex.index(product);
+        }
+    }
+
+    @Benchmark
+    public SearchHits fuzzySearch() {
+        next = (next + 1) % queries.length;
+        return searchIndex.search(queries[next], 0, 20, true);
+    }
+
+    private static String transpose(String word) {
+        return word.substring(0, 1) + word.charAt(2) + word.charAt(1) + word.substring(3);
+    }
+
+    private static String[] randomWords(Random random, int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+}
@@ -0,0 +1,44 @@
+package com.sultan.springshop.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FuzzyTermIndexTest {
+
+    @Test
+    void editDistance_shouldCountTranspositionAsOneEdit() {
+        assertEquals(1, FuzzyTermIndex.editDistance("samsnug", "samsung", 2));
+        assertEquals(2, FuzzyTermIndex.editDistance("samsnog", "samsung", 2));
+        assertEquals(3, FuzzyTermIndex.editDistance("xiaomi", "samsung", 2));
+    }
+
+    @Test
+    void matches_shouldPreferSingleEditMatches() {
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        index.add("samsung");
+        index.add("samson");
+        index.add("lenovo");
+
+        assertEquals(Map.of("samsung", 1), index.matches("samsnug"));
+        assertEquals(Map.of("lenovo", 1), index.matches("lenvoo"));
+        assertEquals(2, index.matches("samsnog").get("samsung"));
+    }
+
+    @Test
+    void matches_shouldIgnoreShortTokensAndRemovedTerms() {
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        index.add("lg");
+        index.add("sony");
+        index.add("sony");
+        index.remove("sony");
+
+        assertTrue(index.matches("lq").isEmpty());
+        assertEquals(Map.of("sony", 1), index.matches("sonu"));
+
+        index.remove("sony");
+        assertTrue(index.matches("sonu").isEmpty());
+    }
+}
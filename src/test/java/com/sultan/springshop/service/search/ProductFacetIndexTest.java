@@ -0,0 +1,73 @@
+package com.sultan.springshop.service.search;
+
+import com.sultan.springshop.dto.FacetCountsDto;
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import com.sultan.springshop.service.product.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductFacetIndexTest {
+
+    private ProductFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        facetIndex = new ProductFacetIndex(null);
+        save(1L, "Phones", "Samsung", "799.00");
+        save(2L, "Phones", "Apple", "999.00");
+        save(3L, "Tablets", "Samsung", "20.00");
+        save(4L, "Phones", "Samsung", "1299.00");
+    }
+
+    @Test
+    void facets_shouldCountEveryDimensionWithoutFilters() {
+        FacetCountsDto facets = facetIndex.facets(List.of(), List.of(), List.of());
+
+        assertEquals(4, facets.getTotal());
+        assertEquals(Map.of("Phones", 3L, "Tablets", 1L), facets.getCategories());
+        assertEquals(Map.of("Samsung", 3L, "Apple", 1L), facets.getBrands());
+        assertEquals(Map.of("500-1000", 2L, "0-25", 1L, "1000+", 1L), facets.getPriceRanges());
+    }
+
+    @Test
+    void facets_shouldApplyOtherDimensionsFiltersToEachDimension() {
+        FacetCountsDto facets = facetIndex.facets(List.of("Phones"), List.of("Samsung"), List.of());
+
+        assertEquals(2, facets.getTotal());
+        // categories are counted for Samsung only, brands for Phones only
+        assertEquals(Map.of("Phones", 2L, "Tablets", 1L), facets.getCategories());
+        assertEquals(Map.of("Samsung", 2L, "Apple", 1L), facets.getBrands());
+        assertEquals(Map.of("500-1000", 1L, "1000+", 1L), facets.getPriceRanges());
+    }
+
+    @Test
+    void onProductChanged_shouldMoveCountsOnUpdateAndDropOnDelete() {
+        save(3L, "Phones", "Samsung", "20.00");
+        facetIndex.onProductChanged(ProductChangedEvent.deleted(2L));
+
+        FacetCountsDto facets = facetIndex.facets(List.of(), List.of(), List.of());
+        assertEquals(3, facets.getTotal());
+        assertEquals(Map.of("Phones", 3L), facets.getCategories());
+        assertEquals(Map.of("Samsung", 3L), facets.getBrands());
+    }
+
+    @Test
+    void priceRange_shouldUseLowerInclusiveBounds() {
+        assertEquals("0-25", ProductFacetIndex.priceRange(Money.of("24.99")));
+        assertEquals("25-50", ProductFacetIndex.priceRange(Money.of("25")));
+        assertEquals("1000+", ProductFacetIndex.priceRange(Money.of("1000")));
+    }
+
+    private void save(Long id, String category, String brand, String price) {
+        Product product = new Product("Product " + id, brand, Money.of(price), 1, "", new Category(category));
+        product.setId(id);
+        facetIndex.onProductChanged(ProductChangedEvent.saved(product));
+    }
+}
@@ -0,0 +1,84 @@
+package com.sultan.springshop.service.search;
+
+import com.sultan.springshop.model.Category;
+import com.sultan.springshop.model.Money;
+import com.sultan.springshop.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex(null, null, null);
+        searchIndex.index(product(1L, "Galaxy S24", "Samsung", "Phones"));
+        searchIndex.index(product(2L, "iPhone 15", "Apple", "Phones"));
+        searchIndex.index(product(3L, "Galaxy Tab", "Samsung", "Tablets"));
+    }
+
+    @Test
+    void search_shouldMatchPrefixesAcrossFields() {
+        SearchHits hits = searchIndex.search("sams", 0, 10, false);
+
+        assertEquals(2, hits.total());
+        assertTrue(hits.productIds().containsAll(List.of(1L, 3L)));
+    }
+
+    @Test
+    void search_shouldRequireEveryToken() {
+        assertEquals(List.of(3L), searchIndex.search("galaxy tablets", 0, 10, false).productIds());
+    }
+
+    @Test
+    void search_shouldRankExactMatchesAbovePrefixMatches() {
+        searchIndex.index(product(4L, "Phone case", "Generic", "Accessories"));
+
+        assertEquals(4L, searchIndex.search("phone", 0, 10, false).productIds().get(0));
+    }
+
+    @Test
+    void search_shouldTolerateTyposOnlyWhenFuzzy() {
+        assertEquals(0, searchIndex.search("samsnug", 0, 10, false).total());
+
+        SearchHits hits = searchIndex.search("samsnug galxy", 0, 10, true);
+        assertEquals(2, hits.total());
+        assertTrue(hits.productIds().containsAll(List.of(1L, 3L)));
+    }
+
+    @Test
+    void search_shouldRankExactMatchesAboveTypos() {
+        searchIndex.index(product(4L, "Samsnug Charger", "Generic", "Accessories"));
+
+        assertEquals(4L, searchIndex.search("samsnug", 0, 10, true).productIds().get(0));
+    }
+
+    @Test
+    void search_shouldPaginate() {
+        SearchHits hits = searchIndex.search("samsung", 1, 1, false);
+
+        assertEquals(2, hits.total());
+        assertEquals(1, hits.productIds().size());
+    }
+
+    @Test
+    void index_shouldReplacePreviousVersionAndRemoveShouldDrop() {
+        searchIndex.index(product(2L, "iPhone 15", "Apple", "Refurbished"));
+        assertEquals(List.of(1L), searchIndex.search("phones", 0, 10, false).productIds());
+
+        searchIndex.remove(1L);
+        assertEquals(0, searchIndex.search("phones", 0, 10, false).total());
+    }
+
+    private Product product(Long id, String name, String brand, String category) {
+        Product product = new Product(name, brand, Money.of("100.00"), 1, name + " by " + brand,
+                new Category(category));
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,45 @@
+package com.sultan.springshop.service.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSuggesterTest {
+
+    @Test
+    void freeze_shouldRankCompletionsByPopularity() {
+        ProductSuggester.Snapshot snapshot = ProductSuggester.freeze(Map.of(
+                1L, new ProductSuggester.Entry("Galaxy S24", "Samsung", 10),
+                2L, new ProductSuggester.Entry("Galaxy Tab", "Samsung", 3),
+                3L, new ProductSuggester.Entry("Gameboy", "Nintendo", 50)));
+
+        assertEquals(List.of("Gameboy", "Galaxy S24", "Galaxy Tab"), snapshot.topByShortPrefix().get("ga"));
+        // brands shared by several products add up their popularity
+        assertEquals(List.of("Samsung"), snapshot.topByShortPrefix().get("s"));
+        assertEquals(13L, snapshot.weights()[List.of(snapshot.keys()).indexOf("samsung")]);
+    }
+
+    @Test
+    void suggest_shouldMatchLongerPrefixesIgnoringCase() {
+        ProductSuggester suggester = new ProductSuggester(null, null, null);
+        ReflectionTestUtils.setField(suggester, "snapshot", ProductSuggester.freeze(Map.of(
+                1L, new ProductSuggester.Entry("Galaxy S24", "Samsung", 10),
+                2L, new ProductSuggester.Entry("Galaxy Tab", "Samsung", 30),
+                3L, new ProductSuggester.Entry("Gameboy", "Nintendo", 50))));
+
+        assertEquals(List.of("Galaxy Tab", "Galaxy S24"), suggester.suggest("GALAX", 10));
+        assertEquals(List.of("Galaxy Tab"), suggester.suggest("galaxy", 1));
+        assertTrue(suggester.suggest("galaxy z", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_shouldReturnEmptyListBeforeFirstBuild() {
+        ProductSuggester suggester = new ProductSuggester(null, null, null);
+
+        assertTrue(suggester.suggest("gal", 5).isEmpty());
+    }
+}